@@ -0,0 +1,72 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the ChessGame calls the server makes on every request
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+
+    @Param({"START", "MIDDLEGAME"})
+    public String position;
+
+    private ChessGame game;
+    private ChessGame mated;
+    private ChessPosition knight;
+    private ChessMove move;
+
+    @Setup
+    public void setUp() {
+        game = Positions.game(position.equals("START") ? Positions.START : Positions.MIDDLEGAME,
+                ChessGame.TeamColor.WHITE);
+        mated = Positions.game(Positions.CHECKMATE, ChessGame.TeamColor.WHITE);
+        // A knight move in each position: b1-c3 from the start, c3-b5 in the middlegame
+        if (position.equals("START")) {
+            knight = ChessPosition.of(1, 2);
+            move = new ChessMove(knight, ChessPosition.of(3, 3), null);
+        } else {
+            knight = ChessPosition.of(3, 3);
+            move = new ChessMove(knight, ChessPosition.of(5, 2), null);
+        }
+    }
+
+    @Benchmark
+    public Collection<ChessMove> validMoves() {
+        return game.validMoves(knight);
+    }
+
+    /**
+     * Undone straight away so every call sees the same position
+     */
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        game.makeMove(move);
+        game.undoMove();
+        return game;
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateWhenMated() {
+        return mated.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import chess.*;
+
+/**
+ * Boards shared by the benchmarks, written in the same text layout as the
+ * passoff tests
+ */
+final class Positions {
+
+    static final String START = """
+            |r|n|b|q|k|b|n|r|
+            |p|p|p|p|p|p|p|p|
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |P|P|P|P|P|P|P|P|
+            |R|N|B|Q|K|B|N|R|
+            """;
+
+    static final String MIDDLEGAME = """
+            |r| | | | |r|k| |
+            | |p|p| |q|p|p|p|
+            |p| |n|p| |n| | |
+            | | |b| |p| |B| |
+            | | |B| |P| |b| |
+            |P| |N|P| |N| | |
+            | |P|P| |Q|P|P|P|
+            |R| | | | |R|K| |
+            """;
+
+    /**
+     * White to move and mated: every escape is covered by the queen and knight
+     */
+    static final String CHECKMATE = """
+            | | | | | | |k| |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | |n| | | |
+            | | | | | | |q| |
+            | | | | | | | |K|
+            """;
+
+    private Positions() {
+    }
+
+    static ChessGame game(String boardText, ChessGame.TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(board(boardText));
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    static ChessBoard board(String boardText) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int column = 1;
+        for (char c : boardText.toCharArray()) {
+            switch (c) {
+                case '\n' -> {
+                    column = 1;
+                    row--;
+                }
+                case ' ' -> column++;
+                case '|' -> {
+                }
+                default -> {
+                    ChessGame.TeamColor color = Character.isLowerCase(c) ? ChessGame.TeamColor.BLACK
+                            : ChessGame.TeamColor.WHITE;
+                    ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+                        case 'p' -> ChessPiece.PieceType.PAWN;
+                        case 'n' -> ChessPiece.PieceType.KNIGHT;
+                        case 'b' -> ChessPiece.PieceType.BISHOP;
+                        case 'r' -> ChessPiece.PieceType.ROOK;
+                        case 'q' -> ChessPiece.PieceType.QUEEN;
+                        default -> ChessPiece.PieceType.KING;
+                    };
+                    board.addPiece(ChessPosition.of(row, column), ChessPiece.of(color, type));
+                    column++;
+                }
+            }
+        }
+        return board;
+    }
+}
@@ -1,5 +1,8 @@
 package dataAccess;
 
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
 import model.GameData;
 
 import java.sql.SQLException;
@@ -14,6 +17,24 @@ public interface GameDAO {
      void updateGame(GameData newGame) throws DataAccessException;
      GameData createGame(GameData game) throws DataAccessException;
 
+    /**
+     * Plays a move in a stored game and records it, without rewriting the whole
+     * game. The move is checked against the game as stored, not a copy the
+     * caller read earlier, so of two moves made from the same position only the
+     * first is recorded.
+     *
+     * @return the ply of the move, 1 for the first move recorded
+     * @throws InvalidMoveException if the move is not legal in the stored game
+     */
+    int addMove(int gameID, ChessMove move) throws DataAccessException, InvalidMoveException;
+
+    /**
+     * @param ply how many of the recorded moves to play, 0 for the game as stored
+     * @return the game as it stood after that many moves, or null if there is no such game
+     * @throws DataAccessException if the game has fewer moves recorded
+     */
+    ChessGame getGameAt(int gameID, int ply) throws DataAccessException;
+
     GameData[] listGames(String username) throws DataAccessException;
     int getNextGameId() throws DataAccessException, SQLException;
 
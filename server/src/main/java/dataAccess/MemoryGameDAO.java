@@ -1,14 +1,28 @@
 package dataAccess;
 
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameCodec;
+import chess.InvalidMoveException;
 import model.GameData;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
 
 public class MemoryGameDAO implements GameDAO {
     private static HashMap<Integer, GameData> gamesList = new HashMap<Integer, GameData>();
+    /**
+     * Each game as created or last replaced, and the moves played since
+     */
+    private static HashMap<Integer, byte[]> startingGames = new HashMap<Integer, byte[]>();
+    private static HashMap<Integer, List<ChessMove>> moves = new HashMap<Integer, List<ChessMove>>();
 
     public void deleteAllGames(){
         gamesList.clear();
+        startingGames.clear();
+        moves.clear();
     }
 
     public GameData getGame(int gameID) {
@@ -18,6 +32,11 @@ public class MemoryGameDAO implements GameDAO {
     public void updateGame(GameData newGame) throws DataAccessException {
         final var currGame = gamesList.get(newGame.getGameID());
         if (currGame != null){
+            // Compare with the position the log leads to, not the stored object,
+            // which a caller may have moved in place
+            if (!Objects.equals(newGame.getGame(), replay(newGame.getGameID(), moves.get(newGame.getGameID()).size()))) {
+                start(newGame);
+            }
             gamesList.put(newGame.getGameID(), newGame);
         }
         else{
@@ -27,6 +46,63 @@ public class MemoryGameDAO implements GameDAO {
 
     public GameData createGame(GameData game) {
         gamesList.put(game.getGameID(), game);
+        start(game);
+        return game;
+    }
+
+    private void start(GameData game) {
+        if (game.getGame() != null) {
+            startingGames.put(game.getGameID(), GameCodec.encode(game.getGame()));
+        } else {
+            startingGames.remove(game.getGameID());
+        }
+        moves.put(game.getGameID(), new ArrayList<>());
+    }
+
+    public int addMove(int gameID, ChessMove move) throws DataAccessException, InvalidMoveException {
+        final var currGame = gamesList.get(gameID);
+        if (currGame == null) {
+            throw new DataAccessException("Game " + gameID + " is not a valid game.");
+        }
+        final var played = moves.get(gameID);
+        final var game = replay(gameID, played.size());
+        if (game == null || game.getBoard() == null) {
+            throw new DataAccessException("Game " + gameID + " has no board");
+        }
+        game.makeMove(move);
+        gamesList.put(gameID, new GameData(gameID, currGame.getWhiteUsername(), currGame.getBlackUsername(),
+                currGame.getGameName(), game));
+        played.add(move);
+        return played.size();
+    }
+
+    public ChessGame getGameAt(int gameID, int ply) throws DataAccessException {
+        final var played = moves.get(gameID);
+        if (played == null) {
+            return null;
+        }
+        if (ply < 0 || ply > played.size()) {
+            throw new DataAccessException("Game " + gameID + " has no ply " + ply);
+        }
+        return replay(gameID, ply);
+    }
+
+    /**
+     * @return the stored game after the first ply logged moves, or null if it has no game
+     */
+    private ChessGame replay(int gameID, int ply) throws DataAccessException {
+        final var start = startingGames.get(gameID);
+        if (start == null) {
+            return null;
+        }
+        final var game = GameCodec.decode(start);
+        try {
+            for (var move : moves.get(gameID).subList(0, ply)) {
+                game.makeMove(move);
+            }
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException("Stored move of game " + gameID + " is not legal");
+        }
         return game;
     }
 
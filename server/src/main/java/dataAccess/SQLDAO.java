@@ -1,5 +1,6 @@
 package dataAccess;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 
 
@@ -10,27 +11,36 @@ public class SQLDAO {
 
     void executeUpdate(String statement, Object... params) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
-            try (var ps = conn.prepareStatement(statement, RETURN_GENERATED_KEYS)) {
-                for (var i = 0; i < params.length; i++) {
-                    var param = params[i];
-                    switch (param) {
-                        case String p -> ps.setString(i + 1, p);
-                        case Integer p -> ps.setInt(i + 1, p);
-                        case null -> ps.setNull(i + 1, NULL);
-                        default -> {
-                        }
-                    }
-                }
-                ps.executeUpdate();
+            executeUpdate(conn, statement, params);
+        } catch (SQLException e) {
+            throw new DataAccessException(String.format("unable to update database: %s, %s", statement, e.getMessage()));
+        }
+    }
 
-                var rs = ps.getGeneratedKeys();
-                if (rs.next()) {
-                    rs.getInt(1);
+    /**
+     * Runs an update on a connection the caller holds, so it can be part of
+     * the caller's transaction
+     */
+    static void executeUpdate(Connection conn, String statement, Object... params) throws SQLException {
+        try (var ps = conn.prepareStatement(statement, RETURN_GENERATED_KEYS)) {
+            for (var i = 0; i < params.length; i++) {
+                var param = params[i];
+                switch (param) {
+                    case String p -> ps.setString(i + 1, p);
+                    case Integer p -> ps.setInt(i + 1, p);
+                    case byte[] p -> ps.setBytes(i + 1, p);
+                    case null -> ps.setNull(i + 1, NULL);
+                    default -> {
+                    }
                 }
+            }
+            ps.executeUpdate();
 
+            var rs = ps.getGeneratedKeys();
+            if (rs.next()) {
+                rs.getInt(1);
             }
-        } catch (SQLException e) {
-            throw new DataAccessException(String.format("unable to update database: %s, %s", statement, e.getMessage()));
+
         }
     }
 
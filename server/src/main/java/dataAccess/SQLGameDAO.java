@@ -1,15 +1,36 @@
 package dataAccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.PackedMove;
 import com.google.gson.Gson;
 import model.GameData;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
+/**
+ * Stores games in three tables. The game table holds each game as it was
+ * created or last replaced by {@link #updateGame}. Moves played after that are
+ * appended to game_moves one row at a time, and every
+ * {@value #CHECKPOINT_PLIES} plies the game, with every move that can be taken
+ * back, is saved to game_checkpoints, so a game, as it is now or at any earlier
+ * ply, is read back by replaying fewer than that many moves.
+ */
 public class SQLGameDAO extends SQLDAO implements GameDAO {
 
     private static final String TABLE = "game";
+    private static final String MOVES_TABLE = "game_moves";
+    private static final String CHECKPOINTS_TABLE = "game_checkpoints";
+
+    /**
+     * How many plies apart board checkpoints are written
+     */
+    static final int CHECKPOINT_PLIES = 16;
 
     static private final String[] createStatements = {
             String.format("""
@@ -18,24 +39,68 @@ public class SQLGameDAO extends SQLDAO implements GameDAO {
                         `wUsername` varchar(256),
                         `bUsername` varchar(256),
                         `gameName` varchar(256),
-                        `game` varchar(256),
+                        `game` blob,
                         PRIMARY KEY (`gameId`),
                         INDEX(gameName)
                     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
-                    """, TABLE)
+                    """, TABLE),
+            String.format("""
+                    CREATE TABLE IF NOT EXISTS %s (
+                        `gameId` int NOT NULL,
+                        `ply` int NOT NULL,
+                        `move` int NOT NULL,
+                        PRIMARY KEY (`gameId`, `ply`)
+                    ) ENGINE=InnoDB
+                    """, MOVES_TABLE),
+            String.format("""
+                    CREATE TABLE IF NOT EXISTS %s (
+                        `gameId` int NOT NULL,
+                        `ply` int NOT NULL,
+                        `game` blob NOT NULL,
+                        PRIMARY KEY (`gameId`, `ply`)
+                    ) ENGINE=InnoDB
+                    """, CHECKPOINTS_TABLE)
     };
 
     static {
         try {
             configureDatabase(createStatements);
+            migrateGameColumn();
         } catch (DataAccessException e) {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Tables made before games were stored with {@link GameCodec} hold JSON text
+     * in a varchar game column; turns that column into a blob, once
+     */
+    private static void migrateGameColumn() throws DataAccessException {
+        try (var conn = DatabaseManager.getConnection()) {
+            var statement = """
+                    SELECT DATA_TYPE FROM information_schema.COLUMNS
+                    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = 'game'
+                    """;
+            try (var ps = conn.prepareStatement(statement)) {
+                ps.setString(1, TABLE);
+                try (var rs = ps.executeQuery()) {
+                    if (!rs.next() || rs.getString(1).equalsIgnoreCase("blob")) {
+                        return;
+                    }
+                }
+            }
+            try (var ps = conn.prepareStatement(String.format("ALTER TABLE %s MODIFY `game` blob", TABLE))) {
+                ps.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(String.format("Unable to configure database: %s", e.getMessage()));
+        }
+    }
     @Override
     public void deleteAllGames() throws DataAccessException {
-        var statement = String.format("TRUNCATE %s", TABLE);
-        executeUpdate(statement);
+        executeUpdate(String.format("TRUNCATE %s", TABLE));
+        executeUpdate(String.format("TRUNCATE %s", MOVES_TABLE));
+        executeUpdate(String.format("TRUNCATE %s", CHECKPOINTS_TABLE));
     }
 
     @Override
@@ -49,8 +114,7 @@ public class SQLGameDAO extends SQLDAO implements GameDAO {
                         var wUsername = rs.getString("wUsername");
                         var bUsername = rs.getString("bUsername");
                         var gameName = rs.getString("gameName");
-                        var gameJSON = rs.getString("game");
-                        var game = new Gson().fromJson(gameJSON, ChessGame.class);
+                        var game = replay(conn, gameID, readGame(rs.getBytes("game")), Integer.MAX_VALUE);
                         return new GameData(gameID,wUsername, bUsername, gameName, game);
                     }
                 }
@@ -62,14 +126,39 @@ public class SQLGameDAO extends SQLDAO implements GameDAO {
         }
     }
 
+    /**
+     * Replaces the players and name of a game. The stored game is only replaced,
+     * and its move log started over, if the new game's position differs from the
+     * one the log leads to. The game's row is locked for the whole update, so a
+     * move made at the same time is logged either before the comparison or
+     * after the reset, never in between.
+     */
     @Override
     public void updateGame(GameData newGame) throws DataAccessException {
         if(isValidGame(newGame)){
             throw new DataAccessException("Invalid game data");
         }
-        var statement = String.format("UPDATE %s SET wUsername=?, bUsername=?, gameName=?, game=? WHERE gameId=?", TABLE);
-        var game = new Gson().toJson(newGame.getGame());
-        executeUpdate(statement, newGame.getWhiteUsername(), newGame.getBlackUsername(), newGame.getGameName(), game, newGame.getGameID());
+        var gameID = newGame.getGameID();
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                var current = replay(conn, gameID, lockGame(conn, gameID), Integer.MAX_VALUE);
+                var statement = String.format("UPDATE %s SET wUsername=?, bUsername=?, gameName=? WHERE gameId=?", TABLE);
+                executeUpdate(conn, statement, newGame.getWhiteUsername(), newGame.getBlackUsername(), newGame.getGameName(), gameID);
+                if (!newGame.getGame().equals(current)) {
+                    executeUpdate(conn, String.format("DELETE FROM %s WHERE gameId=?", MOVES_TABLE), gameID);
+                    executeUpdate(conn, String.format("DELETE FROM %s WHERE gameId=?", CHECKPOINTS_TABLE), gameID);
+                    var game = GameCodec.encode(newGame.getGame());
+                    executeUpdate(conn, String.format("UPDATE %s SET game=? WHERE gameId=?", TABLE), game, gameID);
+                }
+                conn.commit();
+            } catch (SQLException | DataAccessException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(String.format("Unable to update game: %s", e.getMessage()));
+        }
     }
 
     @Override
@@ -78,11 +167,109 @@ public class SQLGameDAO extends SQLDAO implements GameDAO {
             throw new DataAccessException("Invalid game data");
         }
         var statement = String.format("INSERT INTO %s (gameId, wUsername, bUsername, gameName, game) VALUES (?, ?, ?, ?, ?)", TABLE);
-        var newGame = new Gson().toJson(game.getGame());
+        var newGame = GameCodec.encode(game.getGame());
         executeUpdate(statement, game.getGameID(), game.getWhiteUsername(), game.getBlackUsername(), game.getGameName(), newGame);
         return game;
     }
 
+    /**
+     * Locks the game's row, plays the move in the game as the log leads to it,
+     * and writes the move, and its checkpoint if one is due, in one transaction,
+     * so moves made at the same time in one game are checked and numbered one
+     * after the other.
+     */
+    @Override
+    public int addMove(int gameID, ChessMove move) throws DataAccessException, InvalidMoveException {
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                var game = replay(conn, gameID, lockGame(conn, gameID), Integer.MAX_VALUE);
+                if (game == null || game.getBoard() == null) {
+                    throw new DataAccessException("Game " + gameID + " has no board");
+                }
+                game.makeMove(move);
+                var ply = nextPly(conn, gameID);
+                var statement = String.format("INSERT INTO %s (gameId, ply, move) VALUES (?, ?, ?)", MOVES_TABLE);
+                try (var ps = conn.prepareStatement(statement)) {
+                    ps.setInt(1, gameID);
+                    ps.setInt(2, ply);
+                    ps.setInt(3, PackedMove.of(move));
+                    ps.executeUpdate();
+                }
+                if (ply % CHECKPOINT_PLIES == 0) {
+                    statement = String.format("INSERT INTO %s (gameId, ply, game) VALUES (?, ?, ?)", CHECKPOINTS_TABLE);
+                    try (var ps = conn.prepareStatement(statement)) {
+                        ps.setInt(1, gameID);
+                        ps.setInt(2, ply);
+                        ps.setBytes(3, GameCodec.encode(game));
+                        ps.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return ply;
+            } catch (SQLException | DataAccessException | InvalidMoveException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(String.format("Unable to record move: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Locks the game's row until the transaction ends
+     *
+     * @return the stored game, as created or last replaced
+     * @throws DataAccessException if there is no such game
+     */
+    private static ChessGame lockGame(Connection conn, int gameID) throws SQLException, DataAccessException {
+        var statement = String.format("SELECT game FROM %s WHERE gameId=? FOR UPDATE", TABLE);
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new DataAccessException("Game " + gameID + " is not a valid game.");
+                }
+                return readGame(rs.getBytes("game"));
+            }
+        }
+    }
+
+    /**
+     * @return the ply the next move will have
+     */
+    private static int nextPly(Connection conn, int gameID) throws SQLException {
+        var statement = String.format("SELECT COALESCE(MAX(ply), 0) FROM %s WHERE gameId=?", MOVES_TABLE);
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1) + 1;
+            }
+        }
+    }
+
+    @Override
+    public ChessGame getGameAt(int gameID, int ply) throws DataAccessException {
+        if (ply < 0) {
+            throw new DataAccessException("Game " + gameID + " has no ply " + ply);
+        }
+        try (var conn = DatabaseManager.getConnection()) {
+            var statement = String.format("SELECT game FROM %s WHERE gameId=?", TABLE);
+            try (var ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, gameID);
+                try (var rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    return replay(conn, gameID, readGame(rs.getBytes("game")), ply);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(String.format("Unable to read data: %s", e.getMessage()));
+        }
+    }
+
     @Override
     public GameData[] listGames(String username) throws DataAccessException{
         var result = new ArrayList<GameData>();
@@ -95,8 +282,7 @@ public class SQLGameDAO extends SQLDAO implements GameDAO {
                         var wUsername = rs.getString("wUsername");
                         var bUsername = rs.getString("bUsername");
                         var gameName = rs.getString("gameName");
-                        var gameJSON = rs.getString("game");
-                        var game = new Gson().fromJson(gameJSON, ChessGame.class);
+                        var game = replay(conn, gameId, readGame(rs.getBytes("game")), Integer.MAX_VALUE);
                         result.add(new GameData(gameId,wUsername, bUsername, gameName, game));
 
                     }
@@ -125,6 +311,65 @@ public class SQLGameDAO extends SQLDAO implements GameDAO {
         throw new UnsupportedOperationException("Error");
     }
 
+    /**
+     * Brings a game read from the game table up to the given ply: starts from
+     * the latest checkpoint at or before it, if any, and plays the logged moves
+     * after that
+     *
+     * @param toPly the ply to stop at, or {@link Integer#MAX_VALUE} for the latest
+     * @throws DataAccessException if fewer than toPly moves are logged
+     */
+    private static ChessGame replay(Connection conn, int gameID, ChessGame stored, int toPly)
+            throws SQLException, DataAccessException {
+        var game = stored;
+        var ply = 0;
+        var statement = String.format("SELECT ply, game FROM %s WHERE gameId=? AND ply<=? ORDER BY ply DESC LIMIT 1", CHECKPOINTS_TABLE);
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            ps.setInt(2, toPly);
+            try (var rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    ply = rs.getInt("ply");
+                    game = GameCodec.decode(rs.getBytes("game"));
+                }
+            }
+        }
+        statement = String.format("SELECT ply, move FROM %s WHERE gameId=? AND ply>? AND ply<=? ORDER BY ply", MOVES_TABLE);
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            ps.setInt(2, ply);
+            ps.setInt(3, toPly);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    try {
+                        game.makeMove(PackedMove.toChessMove(rs.getInt("move")));
+                    } catch (InvalidMoveException e) {
+                        throw new DataAccessException(String.format("Stored move %d of game %d is not legal", rs.getInt("ply"), gameID));
+                    }
+                    ply = rs.getInt("ply");
+                }
+            }
+        }
+        if (toPly != Integer.MAX_VALUE && ply != toPly) {
+            throw new DataAccessException("Game " + gameID + " has no ply " + toPly);
+        }
+        return game;
+    }
+
+    /**
+     * Reads a stored game, either a {@link GameCodec} encoding or the JSON
+     * written by older versions of the server
+     */
+    private static ChessGame readGame(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == '{') {
+            return new Gson().fromJson(new String(data, StandardCharsets.UTF_8), ChessGame.class);
+        }
+        return GameCodec.decode(data);
+    }
+
     private boolean isValidGame(GameData game){
         return !(game.getGameID() >= 0 & game.getGameName() != null & game.getGame() != null);
     }
@@ -1,6 +1,8 @@
 package service;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
 import dataAccess.*;
 import model.GameData;
 import model.UserData;
@@ -57,6 +59,29 @@ public class GameService {
         gameDAO.updateGame(newGame);
     }
 
+    /**
+     * Plays a move in a stored game and appends it to the game's move log
+     *
+     * @return the game after the move
+     * @throws InvalidMoveException if the move is not legal in the game as stored
+     */
+    public GameData makeMove(int gameID, ChessMove move) throws DataAccessException, InvalidMoveException {
+        GameData game = gameDAO.getGame(gameID);
+        if (game == null || game.getGame() == null || game.getGame().getBoard() == null) {
+            throw new DataAccessException("Game not found");
+        }
+        gameDAO.addMove(gameID, move);
+        return gameDAO.getGame(gameID);
+    }
+
+    /**
+     * @return the game as it stood after the given number of moves, 0 for the
+     * game as created, or null if there is no such game
+     */
+    public ChessGame getGameAt(int gameID, int ply) throws DataAccessException {
+        return gameDAO.getGameAt(gameID, ply);
+    }
+
     public int getNextGameID() throws SQLException, DataAccessException {
         return gameDAO.getNextGameId();
     }
@@ -0,0 +1,74 @@
+package dataAccessTests;
+
+import chess.*;
+import dataAccess.DataAccessException;
+import dataAccess.MemoryGameDAO;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MemoryGameDAOTests {
+    private MemoryGameDAO gameDAO;
+
+    @BeforeEach
+    public void beforeEach() {
+        gameDAO = new MemoryGameDAO();
+        gameDAO.deleteAllGames();
+    }
+
+    @Test
+    public void testGetGameAt() throws DataAccessException, InvalidMoveException {
+        final var game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w");
+        gameDAO.createGame(new GameData(1, "username", "username2", "gameName", game));
+        final var move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        game.makeMove(move);
+        Assertions.assertEquals(1, gameDAO.addMove(1, move));
+
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, gameDAO.getGameAt(1, 0).getTeamTurn());
+        Assertions.assertEquals(game, gameDAO.getGameAt(1, 1));
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.getGameAt(1, 2));
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.addMove(2, move));
+    }
+
+    @Test
+    public void testAddMoveFromSamePosition() throws DataAccessException, InvalidMoveException {
+        final var game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w");
+        gameDAO.createGame(new GameData(1, "username", "username2", "gameName", game));
+
+        // Two players both read the starting position and each sends a white move
+        Assertions.assertEquals(1, gameDAO.addMove(1, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> gameDAO.addMove(1, new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null)));
+
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, gameDAO.getGame(1).getGame().getTeamTurn());
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.getGameAt(1, 2));
+    }
+
+    @Test
+    public void testUpdateGameMovedInPlace() throws DataAccessException, InvalidMoveException {
+        gameDAO.createGame(new GameData(1, "username", "username2", "gameName",
+                ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w")));
+
+        // The old flow: move the stored game itself, then save it without logging the move
+        final var stored = gameDAO.getGame(1);
+        stored.getGame().makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        gameDAO.updateGame(stored);
+
+        Assertions.assertEquals(stored.getGame(), gameDAO.getGameAt(1, 0));
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.getGameAt(1, 1));
+    }
+
+    @Test
+    public void testUpdateGameKeepsLog() throws DataAccessException, InvalidMoveException {
+        final var game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w");
+        gameDAO.createGame(new GameData(1, null, null, "gameName", game));
+        final var move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        game.makeMove(move);
+        gameDAO.addMove(1, move);
+
+        gameDAO.updateGame(new GameData(1, "username", null, "gameName", gameDAO.getGame(1).getGame()));
+
+        Assertions.assertEquals(game, gameDAO.getGameAt(1, 1));
+    }
+}
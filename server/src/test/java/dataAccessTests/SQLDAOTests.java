@@ -1,6 +1,6 @@
 package dataAccessTests;
 
-import chess.ChessGame;
+import chess.*;
 import dataAccess.*;
 import model.AuthData;
 import model.GameData;
@@ -12,6 +12,7 @@ import service.*;
 
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 
 import static dataAccess.DatabaseManager.createDatabase;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -269,6 +270,111 @@ public class SQLDAOTests {
         Assertions.assertEquals(result, newGameInfo);
     }
 
+    @Test
+    public void testGameUpdateNotFound() {
+        final var game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w");
+        Assertions.assertThrows(DataAccessException.class,
+                () -> gameDAO.updateGame(new GameData(1, "username", "username2", "gameName", game)));
+    }
+
+    @Test
+    public void testGameUpdateKeepsMoves() throws DataAccessException, InvalidMoveException {
+        final var gameId = 1;
+        final var game = new ChessGame();
+        final var board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        gameDAO.createGame(new GameData(gameId, "username", "username2", "gameName", game));
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        gameDAO.updateGame(new GameData(gameId, "username", "username2", "gameName", game));
+
+        final var result = gameDAO.getGame(gameId).getGame();
+        Assertions.assertEquals(game, result);
+        result.undoMove();
+        Assertions.assertEquals(board, result.getBoard());
+    }
+
+    @Test
+    public void testAddMove() throws DataAccessException, InvalidMoveException {
+        final var gameId = 1;
+        final var game = new ChessGame();
+        final var board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        gameDAO.createGame(new GameData(gameId, "username", "username2", "gameName", game));
+
+        // Knights out and back, past the first checkpoint
+        final int[][] moves = {{1, 7, 3, 6}, {8, 7, 6, 6}, {3, 6, 1, 7}, {6, 6, 8, 7}};
+        for (int ply = 1; ply <= 18; ply++) {
+            final var m = moves[(ply - 1) % 4];
+            final var move = new ChessMove(new ChessPosition(m[0], m[1]), new ChessPosition(m[2], m[3]), null);
+            game.makeMove(move);
+            Assertions.assertEquals(ply, gameDAO.addMove(gameId, move));
+        }
+
+        final var result = gameDAO.getGame(gameId);
+        Assertions.assertEquals(game, result.getGame());
+        Assertions.assertEquals("username", result.getWhiteUsername());
+        Assertions.assertEquals(game, gameDAO.listGames("username")[0].getGame());
+
+        // Every move can still be taken back, not only those after the checkpoint
+        for (int ply = 0; ply < 18; ply++) {
+            result.getGame().undoMove();
+        }
+        Assertions.assertEquals(gameDAO.getGameAt(gameId, 0), result.getGame());
+    }
+
+    @Test
+    public void testAddMoveGameNotFound() {
+        final var move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.addMove(1, move));
+    }
+
+    @Test
+    public void testAddMoveFromSamePosition() throws DataAccessException, InvalidMoveException {
+        final var game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w");
+        gameDAO.createGame(new GameData(1, "username", "username2", "gameName", game));
+
+        // Two players both read the starting position and each sends a white move
+        Assertions.assertEquals(1, gameDAO.addMove(1, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> gameDAO.addMove(1, new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null)));
+
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, gameDAO.getGame(1).getGame().getTeamTurn());
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.getGameAt(1, 2));
+    }
+
+    @Test
+    public void testGetGameAt() throws DataAccessException, InvalidMoveException {
+        final var gameId = 1;
+        final var game = new ChessGame();
+        final var board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        gameDAO.createGame(new GameData(gameId, "username", "username2", "gameName", game));
+
+        final var moves = new String[]{"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "d2d3", "f8c5", "c2c3", "d7d6",
+                "b1d2", "a7a6", "a2a4", "h7h6", "h2h3", "c8e6", "c4e6", "f7e6", "d1b3", "d8c8"};
+        final var positions = new ArrayList<ChessGame>();
+        positions.add(ChessGame.fromFen(game.toFen()));
+        for (var text : moves) {
+            final var move = PackedMove.toChessMove(PackedMove.parse(text));
+            game.makeMove(move);
+            gameDAO.addMove(gameId, move);
+            positions.add(ChessGame.fromFen(game.toFen()));
+        }
+
+        for (int ply = 0; ply <= moves.length; ply++) {
+            Assertions.assertEquals(positions.get(ply), gameDAO.getGameAt(gameId, ply), "ply " + ply);
+        }
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.getGameAt(gameId, moves.length + 1));
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.getGameAt(gameId, -1));
+        Assertions.assertNull(gameDAO.getGameAt(2, 0));
+    }
+
     @Test
     public void testInvalidGameUpdate() throws DataAccessException {
         final var gameId = 1;
@@ -1,6 +1,6 @@
 package serviceTests;
 
-import chess.ChessGame;
+import chess.*;
 import dataAccess.*;
 import model.AuthData;
 import model.GameData;
@@ -271,6 +271,42 @@ public class ServiceTests {
         assertEquals("username", gameResult.getWhiteUsername());
     }
 
+    @Test
+    void testMakeMove() throws DataAccessException, InvalidMoveException {
+        final var chessGame = new ChessGame();
+        final var board = new ChessBoard();
+        board.resetBoard();
+        chessGame.setBoard(board);
+        chessGame.setTeamTurn(ChessGame.TeamColor.WHITE);
+        gameService.createGame(new GameData(1, null, null, "gameName", chessGame));
+
+        gameService.makeMove(1, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        final var gameResult = gameService.getGame(1).getGame();
+
+        assertEquals(ChessGame.TeamColor.BLACK, gameResult.getTeamTurn());
+        assertNotNull(gameResult.getBoard().getPiece(new ChessPosition(4, 5)));
+        assertThrows(InvalidMoveException.class, () ->
+                gameService.makeMove(1, new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null)));
+    }
+
+    @Test
+    void testGetGameAt() throws DataAccessException, InvalidMoveException {
+        final var chessGame = new ChessGame();
+        final var board = new ChessBoard();
+        board.resetBoard();
+        chessGame.setBoard(board);
+        chessGame.setTeamTurn(ChessGame.TeamColor.WHITE);
+        gameService.createGame(new GameData(1, null, null, "gameName", chessGame));
+        final var start = new ChessBoard(board);
+
+        gameService.makeMove(1, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        gameService.makeMove(1, new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+
+        assertEquals(start, gameService.getGameAt(1, 0).getBoard());
+        assertEquals(ChessGame.TeamColor.BLACK, gameService.getGameAt(1, 1).getTeamTurn());
+        assertEquals(gameService.getGame(1).getGame(), gameService.getGameAt(1, 2));
+    }
+
     @Test
     public void testDeleteAuth() throws DataAccessException {
         final var username = "username";
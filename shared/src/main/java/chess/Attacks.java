@@ -0,0 +1,252 @@
+package chess;
+
+/**
+ * Attack tables for the move generator and check detection, built once when
+ * the class loads.
+ * <p>
+ * Rook and bishop attacks use magic bitboards: the pieces standing on a
+ * slider's rays are masked out of the occupancy, multiplied by a per-square
+ * magic number and shifted down to an index into a table of precomputed attack
+ * sets. The rook table holds 102,400 entries and the bishop table 5,248, about
+ * 840 KB of longs together. Queen attacks are the union of the two.
+ * <p>
+ * Knight, king and pawn-capture attacks depend only on the square, so they are
+ * plain 64-entry masks (pawn captures kept per team).
+ * <p>
+ * {@link #between} and {@link #line} give the squares between, or the whole
+ * line through, two squares on a shared row, column or diagonal. The legal
+ * move generator uses them for blocking checks and for pinned pieces.
+ * <p>
+ * Squares are numbered as in {@link ChessBoard}: 0 is row 1, column 1 and 63 is
+ * row 8, column 8.
+ */
+final class Attacks {
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}, {1, -2}};
+    private static final int[][] KING_OFFSETS = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] WHITE_PAWN_OFFSETS = {{1, -1}, {1, 1}};
+    private static final int[][] BLACK_PAWN_OFFSETS = {{-1, -1}, {-1, 1}};
+
+    private static final long[] ROOK_MAGICS = {
+            0x2080002080400010L, 0x00C0002001401000L, 0x2100110008402002L, 0x0880080081041000L,
+            0x0200020020041008L, 0x2300040008010012L, 0x0C00283004008201L, 0x0180010000407A80L,
+            0x0168800080400020L, 0x0010400040201000L, 0x1001002001001048L, 0x1001002408100100L,
+            0x0801000408010012L, 0x4001000209000400L, 0x08A20004C8020001L, 0x2002801145002280L,
+            0x0080860021004200L, 0x001000C009402002L, 0x00B0002004002800L, 0x100A808010020800L,
+            0x8101010008000410L, 0x0244008002000480L, 0x0000040010810208L, 0x2000020000448534L,
+            0x4104400480008033L, 0x0000810100204000L, 0x0440430900200010L, 0x4600240900100100L,
+            0x0060080080040080L, 0x0001000300080400L, 0x0004084400011002L, 0x0023040200008041L,
+            0x0580050043002080L, 0x0400804002802008L, 0x0001002001004010L, 0x1000200901001000L,
+            0x4410800801800C00L, 0xA012003806001004L, 0x0020100104008802L, 0x0004808402000041L,
+            0x0010400170898000L, 0x0080500020004004L, 0x1040408012020020L, 0x8010040008004040L,
+            0x2001080100110004L, 0x0000020004008080L, 0x0021010810040002L, 0x0800008C43020024L,
+            0x0000800021005100L, 0x0070201040008080L, 0x0000D04282006A00L, 0x0010014400080240L,
+            0x0001080110050100L, 0x0012000810240600L, 0x0402000801040200L, 0x028100108A004100L,
+            0x0050800300102045L, 0x8208210040120882L, 0x8010600101183441L, 0x020B000910006045L,
+            0x0241001002480005L, 0x0081000400880241L, 0x0000009008024124L, 0x0048122980410402L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x0848020822040013L, 0x8010A40085821200L, 0x0008008430840822L, 0x0808048108040000L,
+            0x1304042100008104L, 0x5001012010204023L, 0x81048801B8200420L, 0x200A008084012000L,
+            0x0040102001042084L, 0x840A505042428020L, 0x0000700102202920L, 0x44101C0C10800002L,
+            0x0040040422000000L, 0x0180020802090202L, 0x4020020811041202L, 0x000104308C042000L,
+            0x4140661002424400L, 0x0028012008010460L, 0x0188062102002A00L, 0x0014004840102008L,
+            0x0105000290400002L, 0x8001022200410400L, 0x104A041918013446L, 0x008A000082008238L,
+            0x04A0060008100430L, 0x0008220008820801L, 0x2508041208005010L, 0x4008080200202020L,
+            0x2441001013004000L, 0x0030008060407000L, 0x4008108000420800L, 0x0012021050290100L,
+            0x0210080482200500L, 0xCC01112048100480L, 0x0020402806500440L, 0x00048E0080580080L,
+            0x0040102020020080L, 0x0028010440080807L, 0x4601041108008800L, 0x8040810E04104200L,
+            0x901210110400088AL, 0xA003080212081050L, 0x00C1004048401004L, 0x900000A014400800L,
+            0x0008021040405401L, 0x4020008206002090L, 0x0004190424030100L, 0x0424008A02026250L,
+            0x8004088250900040L, 0x1C00430088A04200L, 0x0001020094040001L, 0x8040210020880061L,
+            0x2010040450442032L, 0x0800840850044001L, 0x0004040802140004L, 0x0004080A04222020L,
+            0x8088802110022000L, 0x1081A10416114400L, 0x0205010A24060820L, 0x0000000720411080L,
+            0x1008000208430400L, 0x580C026028810840L, 0x802020441020A110L, 0x12C0022401020018L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[] KNIGHT_ATTACKS = leaperTable(KNIGHT_OFFSETS);
+    private static final long[] KING_ATTACKS = leaperTable(KING_OFFSETS);
+    private static final long[][] PAWN_ATTACKS = {leaperTable(WHITE_PAWN_OFFSETS), leaperTable(BLACK_PAWN_OFFSETS)};
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    static {
+        ROOK_TABLE = buildTable(ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildTable(BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+        buildLines();
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * @return the squares a rook on the given square attacks, stopping at (and
+     * including) the first occupied square in each direction
+     */
+    static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[ROOK_OFFSETS[square] + index];
+    }
+
+    /**
+     * @return the squares a bishop on the given square attacks, stopping at (and
+     * including) the first occupied square in each direction
+     */
+    static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + index];
+    }
+
+    static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given team on the given square could capture on
+     */
+    static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * @return the squares strictly between two squares that share a row, column
+     * or diagonal, or 0 if they do not
+     */
+    static long between(int from, int to) {
+        return BETWEEN[from * 64 + to];
+    }
+
+    /**
+     * @return every square on the row, column or diagonal through both squares,
+     * edge to edge, or 0 if they are not aligned
+     */
+    static long line(int from, int to) {
+        return LINE[from * 64 + to];
+    }
+
+    /**
+     * Fills in the mask, shift and table offset of every square and returns the
+     * shared attack table, walking the rays once for every blocker arrangement.
+     */
+    private static long[] buildTable(int[][] directions, long[] magics, long[] masks, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantBlockers(square, directions);
+            int bits = Long.bitCount(masks[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = size;
+            size += 1 << bits;
+        }
+
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            long blockers = 0;
+            // Visits every subset of the mask, ending back at the empty set
+            do {
+                int index = offsets[square] + (int) ((blockers * magics[square]) >>> shifts[square]);
+                long attacks = walkRays(square, blockers, directions);
+                if (table[index] != 0 && table[index] != attacks) {
+                    throw new IllegalStateException("Magic number collision on square " + square);
+                }
+                table[index] = attacks;
+                blockers = (blockers - mask) & mask;
+            } while (blockers != 0);
+        }
+        return table;
+    }
+
+    private static long[] leaperTable(int[][] offsets) {
+        long[] table = new long[64];
+        for (int square = 0; square < 64; square++) {
+            for (int[] offset : offsets) {
+                int r = square / 8 + offset[0];
+                int c = square % 8 + offset[1];
+                if (onBoard(r, c)) {
+                    table[square] |= 1L << (r * 8 + c);
+                }
+            }
+        }
+        return table;
+    }
+
+    private static void buildLines() {
+        for (int square = 0; square < 64; square++) {
+            for (int[] direction : KING_OFFSETS) {
+                long line = walkRays(square, 0, new int[][]{direction, {-direction[0], -direction[1]}})
+                        | 1L << square;
+                long ray = 0;
+                int r = square / 8 + direction[0];
+                int c = square % 8 + direction[1];
+                while (onBoard(r, c)) {
+                    BETWEEN[square * 64 + r * 8 + c] = ray;
+                    LINE[square * 64 + r * 8 + c] = line;
+                    ray |= 1L << (r * 8 + c);
+                    r += direction[0];
+                    c += direction[1];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the ray squares whose occupancy changes a slider's attacks; the
+     * last square of each ray is left out because it is attacked either way
+     */
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int r = square / 8 + direction[0];
+            int c = square % 8 + direction[1];
+            while (onBoard(r + direction[0], c + direction[1])) {
+                mask |= 1L << (r * 8 + c);
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long walkRays(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int r = square / 8 + direction[0];
+            int c = square % 8 + direction[1];
+            while (onBoard(r, c)) {
+                long bit = 1L << (r * 8 + c);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+}
@@ -1,39 +1,71 @@
 package chess;
 
+import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.Arrays;
-import java.util.Map;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Pieces are stored as one 64-bit bitboard per team/piece type (bit 0 is row 1,
+ * column 1 and bit 63 is row 8, column 8), plus a flat square-to-piece table so
+ * {@link #getPiece} stays a single array read.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.Serializer.class)
 public class ChessBoard{
     public ChessBoard(ChessBoard other) {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                ChessPiece originalPiece = other.board[i][j];
-                if (originalPiece != null) {
-                    this.board[i][j] = new ChessPiece(originalPiece.getTeamColor(), originalPiece.getPieceType());
-                } else {
-                    this.board[i][j] = null;
-                }
-            }
-        }
+        System.arraycopy(other.pieces, 0, this.pieces, 0, this.pieces.length);
+        System.arraycopy(other.colors, 0, this.colors, 0, this.colors.length);
+        System.arraycopy(other.squares, 0, this.squares, 0, this.squares.length);
+        this.key = other.key;
+        this.materialKey = other.materialKey;
+        this.material[0] = other.material[0];
+        this.material[1] = other.material[1];
+        this.middlegame = other.middlegame;
+        this.endgame = other.endgame;
+        this.phase = other.phase;
     }
 
-    private final ChessPiece[][] board = new ChessPiece[8][8];
-    final static Map<Character, ChessPiece.PieceType> charToTypeMap = Map.of(
-            'p', ChessPiece.PieceType.PAWN,
-            'n', ChessPiece.PieceType.KNIGHT,
-            'r', ChessPiece.PieceType.ROOK,
-            'q', ChessPiece.PieceType.QUEEN,
-            'k', ChessPiece.PieceType.KING,
-            'b', ChessPiece.PieceType.BISHOP);
+    private final long[] pieces = new long[12];
+    private final long[] colors = new long[2];
+    private final ChessPiece[] squares = new ChessPiece[64];
+    /**
+     * Zobrist key of the pieces on the board, kept up to date by every change
+     */
+    private long key;
+    /**
+     * Count of each piece index in 4-bit fields; boards with the same material have the same material key.
+     * A count past 15 carries into the next field, so it is only read while every count fits.
+     */
+    private long materialKey;
+    /**
+     * Evaluation terms, kept up to date by every change like the key: each team's
+     * material, white's middlegame and endgame piece-square scores minus black's,
+     * and the game phase from {@link PieceSquareTables#PHASE_WEIGHTS}
+     */
+    private final int[] material = new int[2];
+    private int middlegame;
+    private int endgame;
+    private int phase;
+    /**
+     * What {@link #materialKey()} returns for a board with too many of one piece
+     * to count; matches no material a real game can have
+     */
+    public static final long NO_MATERIAL_KEY = -1;
+    /**
+     * FEN letter of each {@link #pieceIndex}
+     */
+    private static final String FEN_LETTERS = "KQBNRPkqbnrp";
+    private static final String START_PLACEMENT = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR";
 
     public ChessBoard() {
-        
+
     }
 
     @Override
@@ -41,21 +73,36 @@ public class ChessBoard{
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ChessBoard that = (ChessBoard) o;
-        return Arrays.deepEquals(board, that.board);
+        return key == that.key && Arrays.equals(pieces, that.pieces);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(key);
     }
 
     @Override
     public String toString() {
         return "ChessBoard{" +
-                "board=" + Arrays.deepToString(board) +
+                "board=" + Arrays.deepToString(toGrid()) +
                 '}';
     }
 
+    /**
+     * @return the bit index of a position, 0 for row 1 column 1 up to 63 for row 8 column 8
+     */
+    static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
+    static ChessPosition position(int square) {
+        return ChessPosition.of(square);
+    }
+
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -63,12 +110,15 @@ public class ChessBoard{
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-
-        board[position.getRow()-1][position.getColumn()-1] = piece;
+        int square = square(position);
+        clearSquare(square);
+        if (piece != null) {
+            putPiece(square, piece);
+        }
     }
 
     public void removePiece(ChessPosition position) {
-        board[position.getRow() - 1][position.getColumn() - 1] = null;
+        clearSquare(square(position));
     }
 
 
@@ -81,7 +131,245 @@ public class ChessBoard{
      */
 
     public ChessPiece getPiece(ChessPosition position) {
-        return board[position.getRow()-1][position.getColumn()-1];
+        return squares[square(position)];
+    }
+
+    ChessPiece getPiece(int square) {
+        return squares[square];
+    }
+
+    /**
+     * @return 64-bit Zobrist key of the pieces on the board; equal boards have
+     * equal keys. {@link ChessGame#positionKey()} also folds in the side to move.
+     */
+    public long positionKey() {
+        return key;
+    }
+
+    /**
+     * @return a key that depends only on how many pieces of each team and type are
+     * on the board, not where they stand, or {@link #NO_MATERIAL_KEY} if there
+     * are more than 15 of one piece, which its 4-bit count could not hold
+     */
+    public long materialKey() {
+        if (Long.bitCount(getOccupancy()) > 15) {
+            for (long bits : pieces) {
+                if (Long.bitCount(bits) > 15) {
+                    return NO_MATERIAL_KEY;
+                }
+            }
+        }
+        return materialKey;
+    }
+
+    /**
+     * @return the total value of a team's pieces other than the king, in centipawns
+     */
+    public int getMaterial(ChessGame.TeamColor color) {
+        return material[color.ordinal()];
+    }
+
+    /**
+     * @return how much non-pawn material is left, from 24
+     * in the opening down to 0 with only kings and pawns
+     */
+    public int getPhase() {
+        return Math.min(phase, PieceSquareTables.MAX_PHASE);
+    }
+
+    /**
+     * Material and piece-square score of the position from white's point of view,
+     * in centipawns. The middlegame and endgame scores are blended by
+     * {@link #getPhase()}, so the weighting slides toward the endgame as pieces
+     * come off. The terms are updated on every change to the board, so this is
+     * a few arithmetic operations rather than a scan of the squares.
+     */
+    public int evaluate() {
+        int phase = getPhase();
+        return (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase))
+                / PieceSquareTables.MAX_PHASE;
+    }
+
+    /**
+     * @return bitboard of the squares holding the given team's pieces of the given type
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    long getPieces(int pieceIndex) {
+        return pieces[pieceIndex];
+    }
+
+    /**
+     * @return bitboard of the squares holding any of the given team's pieces
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * Finds a team's king from its bitboard, which putPiece and clearSquare keep
+     * current, so this is a single bit scan rather than a search of the board
+     *
+     * @return the king's position, or null if the team has no king
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = kingSquare(color);
+        return square < 0 ? null : position(square);
+    }
+
+    /**
+     * @return the square of a team's king, or -1 if it has none
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        long kings = pieces[pieceIndex(color, ChessPiece.PieceType.KING)];
+        return kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        return colors[0] | colors[1];
+    }
+
+    /**
+     * Determines if any of a team's pieces attack a square. Looks outward from the
+     * square for a piece that could reach it, rather than generating the team's moves;
+     * a slider attacks the square exactly when the square would attack it back.
+     *
+     * @param position the square to test
+     * @param byColor  the attacking team
+     * @return True if a piece of byColor attacks the square
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor byColor) {
+        return isSquareAttacked(square(position), byColor);
+    }
+
+    boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+        int base = byColor.ordinal() * 6;
+        ChessGame.TeamColor defender = byColor == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+
+        // A pawn attacks the square exactly when a defending pawn there would attack the pawn
+        if ((Attacks.pawnAttacks(defender, square) & pieces[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0
+                || (Attacks.knightAttacks(square) & pieces[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0
+                || (Attacks.kingAttacks(square) & pieces[base + ChessPiece.PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+
+        long queens = pieces[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long straight = pieces[base + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+        long diagonal = pieces[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+        long occupied = getOccupancy();
+        return (Attacks.rookAttacks(square, occupied) & straight) != 0
+                || (Attacks.bishopAttacks(square, occupied) & diagonal) != 0;
+    }
+
+    /**
+     * @return bitboard of the byColor pieces attacking a square, with sliders
+     * blocked by the given occupancy rather than the board's own
+     */
+    long attackersTo(int square, ChessGame.TeamColor byColor, long occupied) {
+        int base = byColor.ordinal() * 6;
+        ChessGame.TeamColor defender = byColor == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = pieces[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (Attacks.pawnAttacks(defender, square) & pieces[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Attacks.knightAttacks(square) & pieces[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (Attacks.kingAttacks(square) & pieces[base + ChessPiece.PieceType.KING.ordinal()])
+                | (Attacks.rookAttacks(square, occupied) & (pieces[base + ChessPiece.PieceType.ROOK.ordinal()] | queens))
+                | (Attacks.bishopAttacks(square, occupied) & (pieces[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens));
+    }
+
+    /**
+     * Plays a move on this board in place, without checking that it is legal.
+     * Captures the piece on the end square and promotes if the move names a
+     * promotion piece.
+     *
+     * @param move the move to play
+     * @return an undo record to hand to {@link #unmake(int)}
+     */
+    public int make(ChessMove move) {
+        return make(square(move.getStartPosition()), square(move.getEndPosition()), move.getPromotionPiece());
+    }
+
+    /**
+     * Same as {@link #make(ChessMove)} for a move in {@link PackedMove} form
+     */
+    public int make(int move) {
+        return make(PackedMove.from(move), PackedMove.to(move), PackedMove.promotionPiece(move));
+    }
+
+    int make(int from, int to, ChessPiece.PieceType promotion) {
+        ChessPiece moved = squares[from];
+        ChessPiece captured = squares[to];
+        int undo = from | to << 6;
+        if (captured != null) {
+            undo |= (pieceIndex(captured.getTeamColor(), captured.getPieceType()) + 1) << 12;
+        }
+        clearSquare(to);
+        clearSquare(from);
+        if (promotion != null) {
+            undo |= (pieceIndex(moved.getTeamColor(), moved.getPieceType()) + 1) << 16;
+            putPiece(to, ChessPiece.of(moved.getTeamColor(), promotion));
+        } else {
+            putPiece(to, moved);
+        }
+        return undo;
+    }
+
+    /**
+     * Takes back a move played with {@link #make}. Moves must be unmade in the
+     * reverse order they were made.
+     *
+     * @param undo the record returned when the move was made
+     */
+    public void unmake(int undo) {
+        int from = undo & 63;
+        int to = undo >>> 6 & 63;
+        int captured = undo >>> 12 & 15;
+        int promotedFrom = undo >>> 16 & 15;
+        ChessPiece moved = promotedFrom != 0 ? ChessPiece.of(promotedFrom - 1) : squares[to];
+        clearSquare(to);
+        putPiece(from, moved);
+        if (captured != 0) {
+            putPiece(to, ChessPiece.of(captured - 1));
+        }
+    }
+
+    private void putPiece(int square, ChessPiece piece) {
+        long bit = 1L << square;
+        int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        pieces[index] |= bit;
+        key ^= Zobrist.piece(index, square);
+        score(index, square, 1);
+        colors[piece.getTeamColor().ordinal()] |= bit;
+        squares[square] = ChessPiece.of(index);
+    }
+
+    private void clearSquare(int square) {
+        ChessPiece piece = squares[square];
+        if (piece == null) {
+            return;
+        }
+        long bit = 1L << square;
+        int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        pieces[index] &= ~bit;
+        key ^= Zobrist.piece(index, square);
+        score(index, square, -1);
+        colors[piece.getTeamColor().ordinal()] &= ~bit;
+        squares[square] = null;
+    }
+
+    private void score(int index, int square, int sign) {
+        int type = index % 6;
+        materialKey += (long) sign << (index * 4);
+        material[index / 6] += sign * Evaluation.PIECE_VALUES[type];
+        middlegame += sign * PieceSquareTables.MIDDLEGAME[index][square];
+        endgame += sign * PieceSquareTables.ENDGAME[index][square];
+        phase += sign * PieceSquareTables.PHASE_WEIGHTS[type];
     }
 
     /**
@@ -89,39 +377,127 @@ public class ChessBoard{
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        var boardText ="""
-                |r|n|b|q|k|b|n|r|
-                |p|p|p|p|p|p|p|p|
-                | | | | | | | | |
-                | | | | | | | | |
-                | | | | | | | | |
-                | | | | | | | | |
-                |P|P|P|P|P|P|P|P|
-                |R|N|B|Q|K|B|N|R|
-                """;
-        int row = 8;
-        int column = 1;
-        for (var c : boardText.toCharArray()) {
-            switch (c) {
-                case '\n' -> {
-                    column = 1;
-                    row--;
+        readPlacement(START_PLACEMENT, 0);
+    }
+
+    private void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        Arrays.fill(squares, null);
+        key = 0;
+        materialKey = 0;
+        Arrays.fill(material, 0);
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+    }
+
+    /**
+     * Replaces the board's pieces with the piece placement field of a FEN record:
+     * rows 8 down to 1 separated by '/', letters for pieces (upper case for
+     * white) and digits for runs of empty squares
+     *
+     * @param start where the placement starts in the text
+     * @return the index just past the placement
+     * @throws IllegalArgumentException if the placement is not 8 rows of 8 squares
+     */
+    int readPlacement(CharSequence fen, int start) {
+        clear();
+        int row = 7;
+        int column = 0;
+        int at = start;
+        for (; at < fen.length() && fen.charAt(at) != ' '; at++) {
+            char c = fen.charAt(at);
+            if (c == '/') {
+                if (column != 8 || row == 0) {
+                    throw new IllegalArgumentException("Bad FEN row " + (row + 1) + ": " + fen);
                 }
-                case ' ' -> column++;
-                case '|' -> {
+                row--;
+                column = 0;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+            } else {
+                int index = FEN_LETTERS.indexOf(c);
+                if (index < 0 || column >= 8) {
+                    throw new IllegalArgumentException("Bad FEN piece '" + c + "': " + fen);
                 }
-                default -> {
-                    ChessGame.TeamColor color = Character.isLowerCase(c) ? ChessGame.TeamColor.BLACK
-                            : ChessGame.TeamColor.WHITE;
-                    var type = charToTypeMap.get(Character.toLowerCase(c));
-                    var position = new ChessPosition(row, column);
-                    var piece = new ChessPiece(color, type);
-                    this.addPiece(position, piece);
-                    column++;
+                putPiece(row * 8 + column, ChessPiece.of(index));
+                column++;
+            }
+            if (column > 8) {
+                throw new IllegalArgumentException("Bad FEN row " + (row + 1) + ": " + fen);
+            }
+        }
+        if (row != 0 || column != 8) {
+            throw new IllegalArgumentException("Bad FEN placement: " + fen);
+        }
+        return at;
+    }
+
+    /**
+     * Writes the board as the piece placement field of a FEN record
+     */
+    void appendPlacement(Appendable out) throws IOException {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int square = row * 8; square < row * 8 + 8; square++) {
+                ChessPiece piece = squares[square];
+                if (piece == null) {
+                    empty++;
+                    continue;
                 }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(FEN_LETTERS.charAt(pieceIndex(piece.getTeamColor(), piece.getPieceType())));
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
             }
         }
     }
 
+    private ChessPiece[][] toGrid() {
+        ChessPiece[][] grid = new ChessPiece[8][8];
+        for (int square = 0; square < 64; square++) {
+            grid[square / 8][square % 8] = squares[square];
+        }
+        return grid;
+    }
 
+    /**
+     * Keeps the JSON form of a board as {"board": [[...]]}, the shape Gson produced
+     * for the old ChessPiece[8][8] field, so stored games and clients keep working.
+     */
+    static class Serializer implements JsonSerializer<ChessBoard>, JsonDeserializer<ChessBoard> {
+        @Override
+        public JsonElement serialize(ChessBoard src, Type typeOfSrc, JsonSerializationContext context) {
+            JsonObject json = new JsonObject();
+            json.add("board", context.serialize(src.toGrid()));
+            return json;
+        }
+
+        @Override
+        public ChessBoard deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+                throws JsonParseException {
+            ChessBoard board = new ChessBoard();
+            JsonElement grid = json.getAsJsonObject().get("board");
+            if (grid == null || grid.isJsonNull()) {
+                return board;
+            }
+            ChessPiece[][] cells = context.deserialize(grid, ChessPiece[][].class);
+            for (int r = 0; r < cells.length; r++) {
+                for (int c = 0; c < cells[r].length; c++) {
+                    if (cells[r][c] != null) {
+                        board.putPiece(r * 8 + c, cells[r][c]);
+                    }
+                }
+            }
+            return board;
+        }
+    }
 }
@@ -1,5 +1,8 @@
 package chess;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
@@ -16,6 +19,24 @@ public class ChessGame {
 
     private ChessBoard board;
 
+    /**
+     * Undo records from {@link ChessBoard#make} for the moves played through
+     * {@link #makeMove}, oldest first
+     */
+    private transient int[] undoStack = new int[64];
+    private transient int undoCount;
+
+    /**
+     * Legal moves of each team for the position with the matching board key,
+     * computed on first use. The key check also catches changes made straight
+     * to the board from {@link #getBoard()}.
+     */
+    private transient MoveList[] legalMoves = new MoveList[2];
+    private transient long[] legalMovesKey = new long[2];
+    private transient boolean[] legalMovesCached = new boolean[2];
+    private transient long moveCacheHits;
+    private transient long moveCacheMisses;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -33,6 +54,56 @@ public class ChessGame {
 
     }
 
+    /**
+     * Reads a game from Forsyth-Edwards Notation, e.g. the starting position
+     * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1". Only the piece
+     * placement and side to move are required; castling rights, en passant
+     * square and move clocks may follow but are ignored, since the rules here
+     * have no castling or en passant.
+     *
+     * @throws IllegalArgumentException if the placement or side to move is malformed
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        int at = board.readPlacement(fen, 0);
+        if (at + 2 > fen.length() || fen.charAt(at) != ' '
+                || at + 2 < fen.length() && fen.charAt(at + 2) != ' ') {
+            throw new IllegalArgumentException("Bad FEN side to move: " + fen);
+        }
+        TeamColor turn = switch (fen.charAt(at + 1)) {
+            case 'w' -> TeamColor.WHITE;
+            case 'b' -> TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Bad FEN side to move: " + fen);
+        };
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    /**
+     * Writes the game's position in Forsyth-Edwards Notation, with no castling
+     * rights or en passant square and the move clocks at "0 1"
+     */
+    public void toFen(Appendable out) throws IOException {
+        board.appendPlacement(out);
+        out.append(turn == TeamColor.BLACK ? " b" : " w").append(" - - 0 1");
+    }
+
+    /**
+     * @return the game's position in Forsyth-Edwards Notation
+     * @see #toFen(Appendable)
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        try {
+            toFen(fen);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return fen.toString();
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -47,6 +118,16 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.turn = team;
+        invalidateMoveCache();
+    }
+
+    /**
+     * @return 64-bit Zobrist key of the board and the side to move, kept up to date
+     * as pieces are added, removed and moved
+     */
+    public long positionKey() {
+        long key = board.positionKey();
+        return turn == TeamColor.BLACK ? key ^ Zobrist.blackToMove() : key;
     }
 
     /**
@@ -65,28 +146,33 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        TeamColor oldColor = this.turn;
-
         ChessPiece currPiece = board.getPiece(startPosition);
         if(currPiece == null){
             return new HashSet<>();
         }
-        this.turn = currPiece.getTeamColor();
-        Collection<ChessMove> movesList = currPiece.pieceMoves(board, startPosition);
-        HashSet<ChessMove> finalMoves = new HashSet<>();
-
-        for (ChessMove move : movesList) {
-            ChessBoard clonedBoard = new ChessBoard(board);
-            clonedBoard.removePiece(move.endPosition);
-            clonedBoard.removePiece(move.startPosition);
-            clonedBoard.addPiece(move.endPosition, currPiece);
-
-            if (!isOtherBoardInCheck(currPiece.getTeamColor(), clonedBoard)) {
-                finalMoves.add(move);
-            }
-        }
-        this.turn = oldColor;
-        return finalMoves;
+        return legalMoves(currPiece.getTeamColor()).toChessMovesFrom(ChessBoard.square(startPosition));
+    }
+
+    /**
+     * Fills a move list with every legal move for the team whose turn it is, as
+     * {@link PackedMove} ints. The list is cleared first.
+     *
+     * @param out the list to fill
+     */
+    public void generateLegal(MoveList out) {
+        generateLegal(turn, out);
+    }
+
+    /**
+     * Fills a move list with every legal move for the given team, as
+     * {@link PackedMove} ints. The list is cleared first.
+     *
+     * @param teamColor the team to move
+     * @param out       the list to fill
+     */
+    public void generateLegal(TeamColor teamColor, MoveList out) {
+        out.clear();
+        MoveGenerator.generateLegal(board, teamColor, out);
     }
 
     private void changeTurn(){
@@ -94,55 +180,35 @@ public class ChessGame {
         else if (this.turn == TeamColor.BLACK) turn = TeamColor.WHITE;
     }
     public boolean isOtherBoardInCheck(TeamColor teamColor, ChessBoard otherBoard) {
-        ChessPosition king = findKing(teamColor, otherBoard);
-        TeamColor otherTeam = null;
-        if(teamColor == TeamColor.BLACK){
-            otherTeam = TeamColor.WHITE;
-        }
-        else if(teamColor == TeamColor.WHITE){
-            otherTeam = TeamColor.BLACK;
+        int king = otherBoard.kingSquare(teamColor);
+        if (king < 0) {
+            return false;
         }
+        return otherBoard.isSquareAttacked(king, opponent(teamColor));
+    }
 
-        Collection<ChessMove> otherTeamMoves = allMoves(otherTeam, otherBoard);
-
-        for(ChessMove move : otherTeamMoves){
-            if(move.endPosition.equals(king)){
-                return true;
-            }
-        }
-        return false;
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     public Collection<ChessMove> allMoves(TeamColor teamColor, ChessBoard otherBoard) {
-        Collection<ChessMove> allMoves = new HashSet<>();
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition myPos = new ChessPosition(i, j);
-                ChessPiece myPiece = otherBoard.getPiece(myPos);
-                if (myPiece != null && myPiece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> moves = myPiece.pieceMoves(otherBoard, myPos);
-                    allMoves.addAll(moves);
-                }
-            }
+        MoveList moves = new MoveList();
+        long own = otherBoard.getOccupancy(teamColor);
+        while (own != 0) {
+            int from = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            otherBoard.getPiece(from).pieceMoves(otherBoard, from, moves);
         }
-
-        return allMoves;
+        return moves.toChessMoves();
     }
 
     public Collection<ChessMove> allValidMoves(TeamColor teamColor, ChessBoard otherBoard) {
-        Collection<ChessMove> allMoves = new HashSet<>();
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition myPos = new ChessPosition(i, j);
-                ChessPiece myPiece = otherBoard.getPiece(myPos);
-                if (myPiece != null && myPiece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> moves = validMoves(myPos);
-                    allMoves.addAll(moves);
-                }
-            }
+        if (otherBoard == board) {
+            return legalMoves(teamColor).toChessMoves();
         }
-
-        return allMoves;
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegal(otherBoard, teamColor, moves);
+        return moves.toChessMoves();
     }
 
     /**
@@ -154,7 +220,6 @@ public class ChessGame {
     public void makeMove(ChessMove move) throws InvalidMoveException {
 
         ChessPosition start = move.getStartPosition();
-        ChessPosition end = move.getEndPosition();
         ChessPiece piece = board.getPiece(start);
 
 
@@ -162,50 +227,80 @@ public class ChessGame {
             throw new InvalidMoveException("Invalid move");
         }
 
-        Collection<ChessMove> movesList = validMoves(start);
+        int legalMove = find(legalMoves(piece.getTeamColor()), move);
 
         TeamColor currTurn = piece.getTeamColor();
         if(this.turn != currTurn){
             throw new InvalidMoveException("Invalid move");
-        } else if (!movesList.contains(move)) {
+        } else if (legalMove < 0) {
             throw new InvalidMoveException("Invalid move");
-        } else if(isInCheck(turn)){
-            var clone1 = new ChessBoard(board);
-            clone1.removePiece(end);
-            clone1.removePiece(start);
-            clone1.addPiece(end, piece);
-            if(isOtherBoardInCheck(turn, clone1)){
-                throw new InvalidMoveException("Invalid move");
-            }
         }
 
+        // Legal pawn moves onto the last row always carry a promotion piece,
+        // so the move can be played as given
+        pushUndo(board.make(legalMove));
+        changeTurn();
+        invalidateMoveCache();
+    }
 
-        ChessBoard clone = new ChessBoard(board);
-        ChessPiece piece2 = board.getPiece(start);
-        clone.removePiece(end);
-        clone.removePiece(start);
-        clone.addPiece(end, piece2);
+    /**
+     * Takes back the last move made with {@link #makeMove}
+     *
+     * @throws InvalidMoveException if there is no move to take back
+     */
+    public void undoMove() throws InvalidMoveException {
+        if (undoCount == 0) {
+            throw new InvalidMoveException("No move to undo");
+        }
+        board.unmake(undoStack[--undoCount]);
+        changeTurn();
+        invalidateMoveCache();
+    }
 
-        if(isOtherBoardInCheck(turn, clone)){
-            throw new InvalidMoveException("Invalid move");
+    /**
+     * @return the packed move in the list matching the given move, or -1 if there is none
+     */
+    private static int find(MoveList moves, ChessMove move) {
+        int from = ChessBoard.square(move.getStartPosition());
+        int to = ChessBoard.square(move.getEndPosition());
+        for (int i = 0; i < moves.size(); i++) {
+            int candidate = moves.get(i);
+            if (PackedMove.from(candidate) == from && PackedMove.to(candidate) == to
+                    && PackedMove.promotionPiece(candidate) == move.getPromotionPiece()) {
+                return candidate;
+            }
         }
+        return -1;
+    }
 
-        this.board.removePiece(end);
-        this.board.removePiece(start);
-        this.board.addPiece(end, piece);
+    /**
+     * @return how many moves made with {@link #makeMove} can be taken back
+     */
+    int getUndoCount() {
+        return undoCount;
+    }
 
+    /**
+     * @return the undo record of the given move, 0 for the oldest
+     */
+    int getUndo(int ply) {
+        return undoStack[ply];
+    }
 
-        if (piece.getPieceType().equals(ChessPiece.PieceType.PAWN)) {
-            if ((piece.getTeamColor() == TeamColor.WHITE && end.getRow() == 8) || (piece.getTeamColor() == TeamColor.BLACK && end.getRow() == 1)) {
-                if (move.getPromotionPiece() == null) {
-                    throw new InvalidMoveException("No promotion piece was specified for Pawn.");
-                }
-                board.removePiece(end);
-                ChessPiece promotion = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
-                this.board.addPiece(end, promotion);
-            }
+    /**
+     * Replaces the moves that can be taken back with undo records from
+     * {@link ChessBoard#make}, oldest first, that lead to the current board
+     */
+    void setUndo(int[] records, int count) {
+        undoStack = Arrays.copyOf(records, Math.max(count, 64));
+        undoCount = count;
+    }
+
+    private void pushUndo(int undo) {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
         }
-        changeTurn();
+        undoStack[undoCount++] = undo;
     }
 
     /**
@@ -214,39 +309,8 @@ public class ChessGame {
      * @param teamColor which team to check for check
      * @return True if the specified team is in check
      */
-
-    private ChessPosition findKing(TeamColor teamColor, ChessBoard myBoard){
-        for(int r =1; r <= 8; r++){
-            for(int c = 1; c <= 8; c++){
-                var currPosition = new ChessPosition(r, c);
-                if(myBoard.getPiece(currPosition) != null) {
-                    if (myBoard.getPiece(currPosition).getTeamColor() == teamColor & myBoard.getPiece(currPosition).getPieceType() == ChessPiece.PieceType.KING) {
-                        return currPosition;
-                    }
-                }
-            }
-        }
-        return null;
-    }
-
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition king = findKing(teamColor, board);
-        TeamColor otherTeam = null;
-        if(teamColor == TeamColor.BLACK){
-            otherTeam = TeamColor.WHITE;
-        }
-        else if(teamColor == TeamColor.WHITE){
-            otherTeam = TeamColor.BLACK;
-        }
-
-        Collection<ChessMove> otherTeamMoves = allMoves(otherTeam, board);
-
-        for(ChessMove move : otherTeamMoves){
-            if(move.endPosition.equals(king)){
-                return true;
-            }
-        }
-        return false;
+        return isOtherBoardInCheck(teamColor, board);
     }
 
     /**
@@ -257,7 +321,7 @@ public class ChessGame {
      */
     public boolean isInCheckmate(TeamColor teamColor) {
         if(isInCheck(teamColor)){
-            return allValidMoves(teamColor, board).isEmpty();
+            return !hasAnyLegalMove(teamColor);
         }
         return false;
     }
@@ -271,13 +335,71 @@ public class ChessGame {
      */
     public boolean isInStalemate(TeamColor teamColor) {
         if(!isInCheck(teamColor)) {
-            return allValidMoves(teamColor, board).isEmpty();
+            return !hasAnyLegalMove(teamColor);
         }
         else{
             return false;
         }
     }
 
+    /**
+     * Determines if the given team has any legal move, stopping at the first one
+     * found rather than listing them all
+     *
+     * @param teamColor which team to look for a move for
+     * @return True if the team has at least one legal move
+     */
+    public boolean hasAnyLegalMove(TeamColor teamColor) {
+        int team = teamColor.ordinal();
+        if (legalMovesCached[team] && legalMovesKey[team] == board.positionKey()) {
+            moveCacheHits++;
+            return !legalMoves[team].isEmpty();
+        }
+        moveCacheMisses++;
+        return MoveGenerator.hasLegalMove(board, teamColor);
+    }
+
+    /**
+     * @return how many move lookups were answered from the legal-move cache
+     */
+    public long getMoveCacheHits() {
+        return moveCacheHits;
+    }
+
+    /**
+     * @return how many move lookups had to generate the legal moves
+     */
+    public long getMoveCacheMisses() {
+        return moveCacheMisses;
+    }
+
+    /**
+     * @return the team's legal moves in the current position, generated only if
+     * the cached list is missing or was made for a different board
+     */
+    private MoveList legalMoves(TeamColor teamColor) {
+        int team = teamColor.ordinal();
+        long key = board.positionKey();
+        if (legalMovesCached[team] && legalMovesKey[team] == key) {
+            moveCacheHits++;
+            return legalMoves[team];
+        }
+        moveCacheMisses++;
+        if (legalMoves[team] == null) {
+            legalMoves[team] = new MoveList();
+        }
+        legalMoves[team].clear();
+        MoveGenerator.generateLegal(board, teamColor, legalMoves[team]);
+        legalMovesKey[team] = key;
+        legalMovesCached[team] = true;
+        return legalMoves[team];
+    }
+
+    private void invalidateMoveCache() {
+        legalMovesCached[0] = false;
+        legalMovesCached[1] = false;
+    }
+
     /**
      * Sets this game's chessboard with a given board
      *
@@ -285,6 +407,8 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        this.undoCount = 0;
+        invalidateMoveCache();
     }
 
     /**
@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Objects;
 
 /**
@@ -32,14 +31,46 @@ public class ChessPiece {
                 '}';
     }
 
+    private static final long ROW_1 = 0xFFL;
+    private static final long ROW_4 = 0xFFL << 24;
+    private static final long ROW_5 = 0xFFL << 32;
+    private static final long ROW_8 = 0xFFL << 56;
+
     private final ChessPiece.PieceType type;
     private final ChessGame.TeamColor pieceColor;
 
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[ChessBoard.pieceIndex(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.type = type;
         this.pieceColor = pieceColor;
     }
 
+    /**
+     * Returns the shared instance for a team and piece type. Pieces are immutable,
+     * so the board stores these instead of allocating its own.
+     *
+     * @return a piece equal to new ChessPiece(pieceColor, type)
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[ChessBoard.pieceIndex(pieceColor, type)];
+    }
+
+    /**
+     * @return the shared instance for a {@link ChessBoard#pieceIndex}
+     */
+    static ChessPiece of(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -74,321 +105,92 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-        HashSet<ChessMove> movesList = new HashSet<>();
-        switch (this.getPieceType()) {
-            case KING -> {
-                return kingMoves(board, myPosition);
-            }
-            case QUEEN -> {
-                return queenMoves(board, myPosition);
-            }
-            case BISHOP -> {
-                return bishopMoves(board, myPosition);
-            }
-            case KNIGHT -> {
-                return knightMoves(board, myPosition);
-            }
-            case ROOK -> {
-                return rookMoves(board, myPosition);
-            }
-            case PAWN -> {
-                return pawnMoves(board, myPosition);
-            }
-        }
-        return movesList;
+        MoveList moves = new MoveList();
+        pieceMoves(board, ChessBoard.square(myPosition), moves);
+        return moves.toChessMoves();
     }
 
-    private boolean canPromote(ChessPosition newPosition, ChessGame.TeamColor myColor) {
-        if (myColor == ChessGame.TeamColor.WHITE) {
-            return newPosition.getRow() == 8;
-        } else {
-            return newPosition.getRow() == 1;
-        }
-    }
-
-    private void promotePawn(ChessPosition startPosition, ChessPosition currentPosition, Collection<ChessMove> movesList) {
-        for (PieceType piece : PieceType.values()) {
-            if (piece != PieceType.KING && piece != this.type) {
-                var move = new ChessMove(startPosition, currentPosition, piece);
-                movesList.add(move);
-            }
-        }
+    /**
+     * Appends this piece's moves from the given square, as {@link PackedMove} ints.
+     * Like {@link #pieceMoves(ChessBoard, ChessPosition)} it ignores whether the
+     * move leaves the king in danger.
+     */
+    void pieceMoves(ChessBoard board, int from, MoveList moves) {
+        pieceMoves(board, from, -1L, moves);
     }
 
-    private void searchSpace(ChessPosition startPosition, ChessPosition currentPosition, ChessBoard board, Collection<ChessMove> movesList,
-                             int r, int c, ChessGame.TeamColor myColor) {
-
-        int row = currentPosition.getRow();
-        int col = currentPosition.getColumn();
-        int newRow = row + r;
-        int newCol = col + c;
-        //New position variable is assigned with new row/column values
-        var newPos = new ChessPosition(newRow, newCol);
-
-        // Checks to see if new position value is within bounds
-        if (newRow < 1 || newRow > 8 || newCol < 1 || newCol > 8) {
-            return;
-        }
-        // Checks for other pieces in new spot
-        if (board.getPiece(newPos) != null) {
-            //board is occupied, If occupied by enemy they are captured
-            var piece = board.getPiece(newPos);
-            if (piece.pieceColor != myColor) {
-                //Move is added if piece is of the opposite team
-                var newMove = new ChessMove(startPosition, newPos, null);
-                movesList.add(newMove);
-            }
-            //Recursion stops and the algorithm doesn't repeat
+    /**
+     * Same as {@link #pieceMoves(ChessBoard, int, MoveList)}, keeping only the
+     * moves that end on a square set in allowed
+     */
+    void pieceMoves(ChessBoard board, int from, long allowed, MoveList moves) {
+        long targets = targets(board, from, allowed);
+        long enemies = board.getOccupancy() & ~board.getOccupancy(this.pieceColor);
+        if (this.type != PieceType.PAWN) {
+            addMoves(from, targets, enemies, moves);
             return;
         }
-        // Updates variables and move is added to list
-        var newMove = new ChessMove(startPosition, newPos, null);
-        movesList.add(newMove);
-        // Repeats recursion
-        searchSpace(startPosition, newPos, board, movesList, r, c, myColor);
-    }
-
-    private Collection<ChessMove> kingMoves(ChessBoard board, ChessPosition myPosition) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-        HashSet<ChessMove> movesList = new HashSet<>();
 
-        int[] directions = {-1, 0, 1};
-        for (int r : directions) {
-            for (int c : directions) {
-                if (r == 0 & c == 0) { // Same as starting position
-                    continue;
-                } else {
-                    int newRow = row + r;
-                    int newCol = col + c;
-                    //Check to see if new position is out of bounds
-                    if (newRow < 1 || newRow > 8 || newCol < 1 || newCol > 8) {
-                        continue;
-                    }
-                    //Check to see if position is occupied
-                    ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                    if (board.getPiece(newPosition) != null) {
-                        //Check to see if position is occupied by enemy
-                        if (board.getPiece(newPosition).pieceColor != this.pieceColor) {
-                            ChessMove move = new ChessMove(myPosition, newPosition, null);
-                            movesList.add(move);
-                            //Adds the move to the available move list
-                        }
-                    }
-                    //If position is not occupied, it is added.
-                    else {
-                        ChessMove move = new ChessMove(myPosition, newPosition, null);
-                        movesList.add(move);
-                    }
-                }
-            }
+        long lastRow = this.pieceColor == ChessGame.TeamColor.WHITE ? ROW_8 : ROW_1;
+        addMoves(from, targets & ~lastRow, enemies, moves);
+        long promotions = targets & lastRow;
+        while (promotions != 0) {
+            int to = Long.numberOfTrailingZeros(promotions);
+            promotions &= promotions - 1;
+            int flags = captureFlag(to, enemies);
+            moves.add(PackedMove.promotion(from, to, PieceType.QUEEN, flags));
+            moves.add(PackedMove.promotion(from, to, PieceType.ROOK, flags));
+            moves.add(PackedMove.promotion(from, to, PieceType.BISHOP, flags));
+            moves.add(PackedMove.promotion(from, to, PieceType.KNIGHT, flags));
         }
-        return movesList;
     }
 
-    private Collection<ChessMove> queenMoves(ChessBoard board, ChessPosition myPosition) {
-        HashSet<ChessMove> movesList = new HashSet<>();
-
-        int[][] directions = {
-                {1, 0}, //up
-                {0, 1}, //right
-                {-1, 0}, //down
-                {0, -1}, //left
-                {1, 1}, //up/right
-                {1, -1}, //up/left
-                {-1, 1}, //down/right
-                {-1, -1} //down/left
+    /**
+     * @return bitboard of the squares in allowed this piece could move to from the
+     * given square, one bit per square however many promotion choices it has
+     */
+    long targets(ChessBoard board, int from, long allowed) {
+        long own = board.getOccupancy(this.pieceColor);
+        long occupied = board.getOccupancy();
+        long reachable = switch (this.type) {
+            case KING -> Attacks.kingAttacks(from);
+            case QUEEN -> Attacks.queenAttacks(from, occupied);
+            case BISHOP -> Attacks.bishopAttacks(from, occupied);
+            case KNIGHT -> Attacks.knightAttacks(from);
+            case ROOK -> Attacks.rookAttacks(from, occupied);
+            case PAWN -> pawnTargets(from, occupied, occupied & ~own);
         };
-        for (int[] direction : directions) {
-            int r = direction[0];
-            int c = direction[1];
-            searchSpace(myPosition, myPosition, board, movesList, r, c, this.pieceColor);
-        }
-
-        return movesList;
+        return reachable & allowed & ~own;
     }
 
-    private Collection<ChessMove> bishopMoves(ChessBoard board, ChessPosition myPosition) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-        HashSet<ChessMove> movesList = new HashSet<>();
-        boolean addMove = false;
-        int[] directions = {-7, -6, -5, -4, -3, -2, -1, 1, 2, 3, 4, 5, 6, 7};
-        for (int r : directions) {
-            int[] directions2 = {r, -r};
-            for (int c : directions2) {
-                int newRow = row + r;
-                int newCol = col + c;
-                //Check to see if new position is out of bounds
-                if (newRow < 1 || newRow > 8 || newCol < 1 || newCol > 8) {
-                    continue;
-                }
-                //Check to see if position is occupied
-                var newPosition = new ChessPosition(newRow, newCol);
-                if (board.getPiece(newPosition) != null) {
-                    //Sees if space is occupied by enemy
-                    //Piece is taken and move is added to list
-                    addMove = board.getPiece(newPosition).getTeamColor() != this.pieceColor;
-                }
-                //New position is not occupied
-                else {
-                    addMove = true;
-                }
-                if (addMove) {
-                    //Check to see if path is blocked by any piece
-                    int xDirection = Integer.compare(newRow, row);
-                    int yDirection = Integer.compare(newCol, col);
-                    int blockCount = 0;
-                    //if x/yDirection is positive, the movement of that axis is also positive
-                    for (int i = 1; i < Math.abs(newRow - row); i++) {
-                        int xValue = row + i * xDirection;
-                        int yValue = col + i * yDirection;
-                        var intermediatePosition = new ChessPosition(xValue, yValue);
-
-                        //Checks if the intermediate position is occupied or not
-                        if (board.getPiece(intermediatePosition) != null) {
-                            blockCount += 1;
-                        }
-                    }
-                    //Intermediate position(s) are not occupied and the move is added
-                    if (blockCount == 0) {
-                        var move = new ChessMove(myPosition, newPosition, null);
-                        movesList.add(move);
-                    }
-                }
-            }
+    /**
+     * Adds a move from the start square to every square set in targets
+     */
+    private static void addMoves(int from, long targets, long enemies, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(PackedMove.of(from, to, captureFlag(to, enemies)));
         }
-        return movesList;
     }
 
-
-    private Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition myPosition) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-        HashSet<ChessMove> movesList = new HashSet<>();
-        int[][] directions = {
-                {2, 1}, //up and right
-                {2, -1}, //up and left
-                {1, 2}, //right and up
-                {-1, 2}, //right and down
-                {-2, 1}, //down and right
-                {-2, -1}, //down and left
-                {-1, -2}, //left and down
-                {1, -2}, //left and up
-        };
-
-        for (int[] direction : directions) {
-            int newRow = row + direction[0];
-            int newCol = col + direction[1];
-            var newPosition = new ChessPosition(newRow, newCol);
-
-            //Check for out of bounds
-            if (newRow < 1 || newRow > 8 || newCol < 1 || newCol > 8) {
-                continue;
-            }
-            //New position is in bounds, check to see if occupied
-
-            if (board.getPiece(newPosition) != null) {
-                //position is occupied, check if is occupied by enemy team
-                if (board.getPiece(newPosition).getTeamColor() != this.pieceColor) {
-                    //occupied by enemy, spot it taken and added to list
-                    var newMove = new ChessMove(myPosition, newPosition, null);
-                    movesList.add(newMove);
-                }
-            } else {
-                //spot is not occupied, it is added to list
-                var newMove = new ChessMove(myPosition, newPosition, null);
-                movesList.add(newMove);
-            }
-        }
-        return movesList;
+    private static int captureFlag(int to, long enemies) {
+        return (enemies >>> to & 1) != 0 ? PackedMove.CAPTURE : 0;
     }
 
-    private Collection<ChessMove> pawnMoves(ChessBoard board, ChessPosition myPosition) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-        HashSet<ChessMove> movesList = new HashSet<>();
-        int direction;
+    private long pawnTargets(int from, long occupied, long enemies) {
+        long empty = ~occupied;
+
+        // Pushes shift the pawn's bit a row at a time; a pawn on the far row shifts off the board
+        long push;
+        long doublePush;
         if (this.pieceColor == ChessGame.TeamColor.WHITE) {
-            direction = 1;
+            push = (1L << from) << 8 & empty;
+            doublePush = push << 8 & empty & ROW_4;
         } else {
-            direction = -1;
-        }
-        int newRow = row + direction;
-        var newPosition = new ChessPosition(newRow, col);
-        var attackPosition1 = new ChessPosition(newRow, col + 1);
-        var attackPosition2 = new ChessPosition(newRow, col - 1);
-        if (newRow >= 1 & newRow <= 8) {
-            //in bounds
-            if (board.getPiece(newPosition) == null) {
-                //space is in bounds and not occupied, is added after checking for promotion
-                if (canPromote(newPosition, pieceColor)) {
-                    promotePawn(myPosition, newPosition, movesList);
-                } else {
-                    var newMove = new ChessMove(myPosition, newPosition, null);
-                    movesList.add(newMove);
-                }
-            }
-        }
-        //Check for and add initial movement
-        if ((this.pieceColor == ChessGame.TeamColor.WHITE & row == 2) || (this.pieceColor == ChessGame.TeamColor.BLACK & row == 7)) {
-            var initialMovePosition = new ChessPosition(newRow + direction, col);
-            if (board.getPiece(initialMovePosition) == null & board.getPiece(newPosition) == null) {
-                var newMove = new ChessMove(myPosition, initialMovePosition, null);
-                movesList.add(newMove);
-            }
-        }
-
-        //Check two diagonal attack positions
-        if (newRow >= 1 & newRow <= 8 & col + 1 >= 1 & col + 1 <= 8) {
-            //in bounds
-            if (board.getPiece(attackPosition1) != null) {
-                //space is occupied
-                if (board.getPiece(attackPosition1).pieceColor != this.pieceColor) {
-                    //occupied by enemy, space is in bounds and added
-                    if (canPromote(attackPosition1, pieceColor)) {
-                        promotePawn(myPosition, attackPosition1, movesList);
-                    } else {
-                        var newMove = new ChessMove(myPosition, attackPosition1, null);
-                        movesList.add(newMove);
-                    }
-                }
-            }
-        }
-        if (newRow >= 1 & newRow <= 8 & col - 1 >= 1 & col - 1 <= 8) {
-            //in bounds
-            if (board.getPiece(attackPosition2) != null) {
-                //space is occupied
-                if (board.getPiece(attackPosition2).pieceColor != this.pieceColor) {
-                    //occupied by enemy, space is in bounds and added
-                    if (canPromote(attackPosition2, pieceColor)) {
-                        promotePawn(myPosition, attackPosition2, movesList);
-                    } else {
-                        var newMove = new ChessMove(myPosition, attackPosition2, null);
-                        movesList.add(newMove);
-                    }
-                }
-            }
+            push = (1L << from) >>> 8 & empty;
+            doublePush = push >>> 8 & empty & ROW_5;
         }
-        return movesList;
+        return push | doublePush | (Attacks.pawnAttacks(this.pieceColor, from) & enemies);
     }
-
-    private Collection<ChessMove> rookMoves(ChessBoard board, ChessPosition myPosition) {
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-        HashSet<ChessMove> movesList = new HashSet<>();
-        //Defines directions going in the x or y direction
-        int[][] directions = {{1, 0}, {-1, 0}, {0, -1}, {0, 1}};
-        for (int[] direction : directions) {
-            int r = direction[0];
-            int c = direction[1];
-            searchSpace(myPosition, myPosition, board, movesList, r, c, this.pieceColor);
-        }
-        return movesList;
-    }
-
-
 }
-
@@ -0,0 +1,25 @@
+package chess;
+
+/**
+ * Static evaluation for {@link Search}: the board's tapered material and
+ * piece-square score, in centipawns from the point of view of the side to move.
+ */
+final class Evaluation {
+
+    /**
+     * Centipawn value of each piece type, indexed by {@link ChessPiece.PieceType#ordinal()}.
+     * The king is priceless but never captured, so it counts for nothing.
+     */
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return {@link ChessBoard#evaluate()}, negated when black is to move
+     */
+    static int evaluate(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        int score = board.evaluate();
+        return sideToMove == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,182 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary form of a {@link ChessGame}: the board, the side to move and
+ * the moves that can be taken back, in a few dozen bytes instead of a JSON board.
+ * <pre>
+ * byte  0      {@link #VERSION}
+ * byte  1      bits 0-1 side to move (0 none, 1 white, 2 black), bit 2 set if there is a board
+ * if there is a board:
+ *   8 bytes    occupied squares, big-endian, bit 0 is row 1, column 1
+ *   n/2 bytes  {@link ChessBoard#pieceIndex} of each occupied square in square
+ *              order, 4 bits each, low half of each byte first
+ * then:
+ *   1-5 bytes  number of moves, 7 bits a byte, low bits first
+ *   3 bytes    per move, its {@link ChessBoard#make} undo record, big-endian, oldest first
+ * </pre>
+ * The starting position with no moves takes 27 bytes.
+ */
+public final class GameCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int HAS_BOARD = 4;
+    private static final int TURN_MASK = 3;
+    private static final int UNDO_BITS = 0xFFFFF;
+
+    private GameCodec() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board == null ? 0 : board.getOccupancy();
+        int pieces = Long.bitCount(occupied);
+        int moves = game.getUndoCount();
+        byte[] out = new byte[2 + (board == null ? 0 : 8 + (pieces + 1) / 2) + 5 + moves * 3];
+
+        int at = 0;
+        out[at++] = VERSION;
+        int flags = game.getTeamTurn() == null ? 0 : game.getTeamTurn().ordinal() + 1;
+        out[at++] = (byte) (board == null ? flags : flags | HAS_BOARD);
+        if (board != null) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out[at++] = (byte) (occupied >>> shift);
+            }
+            int piece = 0;
+            for (long bits = occupied; bits != 0; bits &= bits - 1, piece++) {
+                ChessPiece p = board.getPiece(Long.numberOfTrailingZeros(bits));
+                int index = ChessBoard.pieceIndex(p.getTeamColor(), p.getPieceType());
+                if ((piece & 1) == 0) {
+                    out[at] = (byte) index;
+                } else {
+                    out[at++] |= (byte) (index << 4);
+                }
+            }
+            if ((piece & 1) == 1) {
+                at++;
+            }
+        }
+        for (int count = moves; ; count >>>= 7) {
+            if (count < 0x80) {
+                out[at++] = (byte) count;
+                break;
+            }
+            out[at++] = (byte) (count & 0x7F | 0x80);
+        }
+        for (int ply = 0; ply < moves; ply++) {
+            int undo = game.getUndo(ply);
+            out[at++] = (byte) (undo >>> 16);
+            out[at++] = (byte) (undo >>> 8);
+            out[at++] = (byte) undo;
+        }
+        return at == out.length ? out : Arrays.copyOf(out, at);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a game in a known version,
+     *                                  or its flags or move history are malformed
+     */
+    public static ChessGame decode(byte[] data) {
+        if (data.length < 3 || data[0] != VERSION) {
+            throw new IllegalArgumentException("Not an encoded game");
+        }
+        int at = 1;
+        int flags = data[at++];
+        if ((flags & ~(TURN_MASK | HAS_BOARD)) != 0 || (flags & TURN_MASK) == TURN_MASK) {
+            throw new IllegalArgumentException("Bad flags in encoded game: " + flags);
+        }
+        ChessGame game = new ChessGame();
+        if ((flags & TURN_MASK) != 0) {
+            game.setTeamTurn((flags & TURN_MASK) == 2 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        }
+        if ((flags & HAS_BOARD) != 0) {
+            require(data, at + 8);
+            long occupied = 0;
+            for (int i = 0; i < 8; i++) {
+                occupied = occupied << 8 | data[at++] & 0xFF;
+            }
+            require(data, at + (Long.bitCount(occupied) + 1) / 2);
+            ChessBoard board = new ChessBoard();
+            int piece = 0;
+            for (long bits = occupied; bits != 0; bits &= bits - 1, piece++) {
+                int index = (piece & 1) == 0 ? data[at] & 15 : data[at++] >>> 4 & 15;
+                if (index >= 12) {
+                    throw new IllegalArgumentException("Bad piece in encoded game: " + index);
+                }
+                board.addPiece(ChessBoard.position(Long.numberOfTrailingZeros(bits)), ChessPiece.of(index));
+            }
+            if ((piece & 1) == 1) {
+                if ((data[at++] & 0xF0) != 0) {
+                    throw new IllegalArgumentException("Bad padding in encoded game");
+                }
+            }
+            game.setBoard(board);
+        }
+
+        int moves = 0;
+        for (int shift = 0; ; shift += 7) {
+            require(data, at + 1);
+            byte b = data[at++];
+            moves |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+            if (shift > 21) {
+                throw new IllegalArgumentException("Bad move count in encoded game");
+            }
+        }
+        if (moves > 0 && game.getBoard() == null || moves < 0 || (long) at + moves * 3L != data.length) {
+            throw new IllegalArgumentException("Bad move history in encoded game");
+        }
+        int[] undo = new int[moves];
+        for (int ply = 0; ply < moves; ply++) {
+            undo[ply] = (data[at++] & 0xFF) << 16 | (data[at++] & 0xFF) << 8 | data[at++] & 0xFF;
+        }
+        if (moves > 0) {
+            checkHistory(game.getBoard(), undo);
+        }
+        game.setUndo(undo, moves);
+        return game;
+    }
+
+    /**
+     * Takes back every move on a copy of the board, checking that each undo
+     * record fits the board it is applied to
+     *
+     * @throws IllegalArgumentException if a record has unused bits set, names a
+     *                                  square or piece that cannot be right, or captures its own side
+     */
+    private static void checkHistory(ChessBoard board, int[] undo) {
+        ChessBoard copy = new ChessBoard(board);
+        for (int ply = undo.length - 1; ply >= 0; ply--) {
+            int record = undo[ply];
+            int from = record & 63;
+            int to = record >>> 6 & 63;
+            int captured = record >>> 12 & 15;
+            int promotedFrom = record >>> 16 & 15;
+            ChessPiece moved = copy.getPiece(to);
+            if ((record & ~UNDO_BITS) != 0 || from == to || moved == null || copy.getPiece(from) != null
+                    || captured > 12 || promotedFrom > 12) {
+                throw new IllegalArgumentException("Bad move " + ply + " in encoded game");
+            }
+            int color = moved.getTeamColor().ordinal();
+            int capturedColor = (captured - 1) / 6;
+            int capturedType = (captured - 1) % 6;
+            if (captured != 0 && (capturedColor == color || capturedType == ChessPiece.PieceType.KING.ordinal())
+                    || promotedFrom != 0 && (promotedFrom - 1 != color * 6 + ChessPiece.PieceType.PAWN.ordinal()
+                    || moved.getPieceType() == ChessPiece.PieceType.PAWN
+                    || moved.getPieceType() == ChessPiece.PieceType.KING)) {
+                throw new IllegalArgumentException("Bad move " + ply + " in encoded game");
+            }
+            copy.unmake(record);
+        }
+    }
+
+    private static void require(byte[] data, int length) {
+        if (data.length < length) {
+            throw new IllegalArgumentException("Encoded game is cut short");
+        }
+    }
+}
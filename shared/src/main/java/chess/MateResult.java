@@ -0,0 +1,63 @@
+package chess;
+
+/**
+ * The outcome of a {@link MateSolver} run
+ */
+public class MateResult {
+
+    private final ChessMove move;
+    private final int movesToMate;
+    private final long nodes;
+    private final long nanos;
+
+    MateResult(ChessMove move, int movesToMate, long nodes, long nanos) {
+        this.move = move;
+        this.movesToMate = movesToMate;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return True if the side to move can force mate within the searched number of moves
+     */
+    public boolean isMate() {
+        return move != null;
+    }
+
+    /**
+     * @return the first move of the shortest forced mate, or null if there is none
+     */
+    public ChessMove getMove() {
+        return move;
+    }
+
+    /**
+     * @return how many of the attacker's moves the mate takes, counting the mating
+     * move, or 0 if there is no mate
+     */
+    public int getMovesToMate() {
+        return movesToMate;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "MateResult{" +
+                "move=" + move +
+                ", movesToMate=" + movesToMate +
+                ", nodes=" + nodes +
+                ", millis=" + getMillis() +
+                '}';
+    }
+}
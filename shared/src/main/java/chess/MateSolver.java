@@ -0,0 +1,300 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers "can the side to move force mate in n moves?" exactly, and finds the
+ * first move of the shortest such mate.
+ * <p>
+ * The solver is a depth-limited AND/OR search: a position with the attacker
+ * to move is won if any move wins, and one with the defender to move is won if
+ * every reply loses, or if the defender is checkmated. The attacker's last move
+ * has to give checkmate, so only checking moves are tried there. Checking moves
+ * are also tried first at every other attacker node, since forced mates are
+ * mostly made of them.
+ * <p>
+ * Mates of 1, 2, ... n moves are tried in turn so the answer is the shortest.
+ * Within each length the attacker's root moves are spread across a fork/join
+ * pool, each task working on its own copy of the board. As soon as one task
+ * proves a mate the others stop. Attacker positions already proven or refuted
+ * are remembered in a {@link TranspositionTable} shared by all the tasks.
+ * <p>
+ * Run from the project root after {@code mvn compile}:
+ * <pre>
+ * java -cp shared/target/classes chess.MateSolver
+ * </pre>
+ * to time a fixed set of mate puzzles on 1 to N threads.
+ */
+public class MateSolver {
+
+    private static final int PROVEN = 1;
+    private static final int REFUTED = 0;
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+
+    /**
+     * @param pool  the pool to spread the root moves across
+     * @param table where to remember solved positions; shared between solves
+     */
+    public MateSolver(ForkJoinPool pool, TranspositionTable table) {
+        this.pool = pool;
+        this.table = table;
+    }
+
+    /**
+     * Looks for a forced mate for the team whose turn it is. The game is not changed.
+     *
+     * @param game     the game to solve
+     * @param maxMoves the longest mate to look for, in the attacker's moves
+     * @return the shortest mate found, or a result with no move if there is none
+     * within maxMoves
+     */
+    public MateResult solve(ChessGame game, int maxMoves) {
+        ChessGame.TeamColor attacker = game.getTeamTurn();
+        if (attacker == null || game.getBoard() == null) {
+            throw new IllegalArgumentException("Game has no board or side to move");
+        }
+        long start = System.nanoTime();
+        ChessBoard board = new ChessBoard(game.getBoard());
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.generateLegal(board, attacker, rootMoves);
+
+        long nodes = 0;
+        for (int moves = 1; moves <= maxMoves; moves++) {
+            AtomicBoolean solved = new AtomicBoolean();
+            AtomicInteger winningMove = new AtomicInteger();
+            List<RootTask> tasks = new ArrayList<>(rootMoves.size());
+            for (int i = 0; i < rootMoves.size(); i++) {
+                tasks.add(new RootTask(board, attacker, rootMoves.get(i), moves, solved, winningMove));
+            }
+            pool.invoke(new RootTasks(tasks));
+            for (RootTask task : tasks) {
+                nodes += task.nodes;
+            }
+            if (solved.get()) {
+                return new MateResult(PackedMove.toChessMove(winningMove.get()), moves, nodes,
+                        System.nanoTime() - start);
+            }
+        }
+        return new MateResult(null, 0, nodes, System.nanoTime() - start);
+    }
+
+    private static class RootTasks extends RecursiveAction {
+        private final List<RootTask> tasks;
+
+        RootTasks(List<RootTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Tests one root move on a private board: after it, does every defence lose
+     * within the remaining moves?
+     */
+    private class RootTask extends RecursiveAction {
+        private final ChessBoard board;
+        private final ChessGame.TeamColor attacker;
+        private final int move;
+        private final int moves;
+        private final AtomicBoolean solved;
+        private final AtomicInteger winningMove;
+        private final MoveList[] moveLists;
+        private final MoveList[] quietMoves;
+        private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+        private long nodes;
+        private boolean aborted;
+
+        RootTask(ChessBoard board, ChessGame.TeamColor attacker, int move, int moves,
+                 AtomicBoolean solved, AtomicInteger winningMove) {
+            this.board = new ChessBoard(board);
+            this.attacker = attacker;
+            this.move = move;
+            this.moves = moves;
+            this.solved = solved;
+            this.winningMove = winningMove;
+            this.moveLists = new MoveList[moves * 2];
+            this.quietMoves = new MoveList[moves * 2];
+            for (int ply = 0; ply < moveLists.length; ply++) {
+                moveLists[ply] = new MoveList();
+                quietMoves[ply] = new MoveList();
+            }
+        }
+
+        @Override
+        protected void compute() {
+            if (solved.get()) {
+                return;
+            }
+            board.make(move);
+            if (defenderLoses(opponent(attacker), moves, 1) && !aborted
+                    && winningMove.compareAndSet(0, move)) {
+                solved.set(true);
+            }
+        }
+
+        /**
+         * @param movesLeft the attacker's moves left, including the one about to be played
+         * @return True if the attacker, to move, mates within movesLeft moves
+         */
+        private boolean attackerWins(ChessGame.TeamColor side, int movesLeft, int ply) {
+            if (stop()) {
+                return false;
+            }
+            long key = key(side);
+            if (table.probe(key, entry)) {
+                if (entry.getValue() == PROVEN && entry.getDepth() <= movesLeft) {
+                    return true;
+                }
+                if (entry.getValue() == REFUTED && entry.getDepth() >= movesLeft) {
+                    return false;
+                }
+            }
+
+            MoveList moves = moveLists[ply];
+            MoveList quiet = quietMoves[ply];
+            moves.clear();
+            quiet.clear();
+            MoveGenerator.generateLegal(board, side, moves);
+            ChessGame.TeamColor defender = opponent(side);
+
+            // Checks first; on the last move only checks can mate
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                int undo = board.make(move);
+                boolean check = inCheck(defender);
+                boolean wins = check && defenderLoses(defender, movesLeft, ply + 1);
+                board.unmake(undo);
+                if (wins) {
+                    return remember(key, movesLeft, PROVEN);
+                }
+                if (!check && movesLeft > 1) {
+                    quiet.add(move);
+                }
+            }
+            for (int i = 0; i < quiet.size(); i++) {
+                int undo = board.make(quiet.get(i));
+                boolean wins = defenderLoses(defender, movesLeft, ply + 1);
+                board.unmake(undo);
+                if (wins) {
+                    return remember(key, movesLeft, PROVEN);
+                }
+            }
+            return aborted ? false : remember(key, movesLeft, REFUTED);
+        }
+
+        /**
+         * @param movesLeft the attacker's moves left, including the one just played
+         * @return True if the defender, to move, is mated now or within the attacker's remaining moves
+         */
+        private boolean defenderLoses(ChessGame.TeamColor side, int movesLeft, int ply) {
+            if (stop()) {
+                return false;
+            }
+            if (movesLeft == 1) {
+                return inCheck(side) && !MoveGenerator.hasLegalMove(board, side);
+            }
+
+            MoveList moves = moveLists[ply];
+            moves.clear();
+            MoveGenerator.generateLegal(board, side, moves);
+            if (moves.isEmpty()) {
+                return inCheck(side);
+            }
+            ChessGame.TeamColor other = opponent(side);
+            for (int i = 0; i < moves.size(); i++) {
+                int undo = board.make(moves.get(i));
+                boolean lost = attackerWins(other, movesLeft - 1, ply + 1);
+                board.unmake(undo);
+                if (!lost) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Counts a node and notices when another task has already proven a mate
+         */
+        private boolean stop() {
+            nodes++;
+            if (!aborted && solved.get()) {
+                aborted = true;
+            }
+            return aborted;
+        }
+
+        private boolean remember(long key, int movesLeft, int result) {
+            if (!aborted) {
+                table.store(key, movesLeft, 0, TranspositionTable.EXACT, result);
+            }
+            return result == PROVEN;
+        }
+
+        private long key(ChessGame.TeamColor side) {
+            return side == ChessGame.TeamColor.BLACK ? board.positionKey() ^ Zobrist.blackToMove() : board.positionKey();
+        }
+
+        private boolean inCheck(ChessGame.TeamColor side) {
+            int king = board.kingSquare(side);
+            return king >= 0 && board.isSquareAttacked(king, opponent(side));
+        }
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor side) {
+        return side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * Solves the puzzle set on 1 to N threads, each run with a fresh table, and
+     * prints nodes per second and the speedup over one thread
+     */
+    public static void main(String[] args) {
+        ChessGame[] puzzles = {
+                ChessGame.fromFen("3r2k1/5ppp/8/8/8/8/4RPPP/4R1K1 w"),
+                ChessGame.fromFen("7k/8/5K2/8/8/8/8/Q7 w"),
+                ChessGame.fromFen("k7/p7/1KN5/8/8/8/8/7R w"),
+                ChessGame.fromFen("8/8/3k4/8/8/3K4/R7/7R w"),
+                ChessGame.fromFen("8/8/2k5/8/2K5/8/7Q/8 w"),
+                ChessGame.fromFen("8/5k2/8/5K2/8/8/8/7R w"),
+                ChessGame.fromFen("8/8/4k3/8/3K4/8/8/3Q4 w"),
+        };
+        int[] expectedMoves = {2, 2, 2, 4, 5, 6, 6};
+
+        System.out.printf("%-8s %10s %12s %14s %8s%n", "Threads", "Time (ms)", "Nodes", "Nodes/sec", "Speedup");
+        double singleThreaded = 0;
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                MateSolver solver = new MateSolver(pool, new TranspositionTable(64));
+                long nodes = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < puzzles.length; i++) {
+                    MateResult result = solver.solve(puzzles[i], expectedMoves[i]);
+                    if (result.getMovesToMate() != expectedMoves[i]) {
+                        throw new IllegalStateException("Puzzle " + (i + 1) + " solved as " + result);
+                    }
+                    nodes += result.getNodes();
+                }
+                double millis = (System.nanoTime() - start) / 1e6;
+                if (threads == 1) {
+                    singleThreaded = millis;
+                }
+                System.out.printf("%-8d %10.1f %12d %14.0f %8.2f%n",
+                        threads, millis, nodes, nodes * 1000 / millis, singleThreaded / millis);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package chess;
+
+/**
+ * Generates strictly legal moves without playing them out.
+ * <p>
+ * Before generating, it works out which pieces are giving check and which of
+ * the moving team's pieces are pinned to their king. Those two facts become
+ * masks of the squares each piece may end on:
+ * <ul>
+ *     <li>in check from one piece, other pieces must capture the checker or
+ *     step between it and the king; in double check only the king moves</li>
+ *     <li>a pinned piece must stay on the line through its king and itself</li>
+ *     <li>the king may only step to squares no enemy piece attacks once the
+ *     king has left its square, so it cannot retreat along a slider's ray</li>
+ * </ul>
+ * The engine has no castling or en passant, so these masks cover every way a
+ * move could leave the king attacked. A team with no king has no such
+ * restriction and gets all of its pseudo-legal moves.
+ */
+final class MoveGenerator {
+
+    /**
+     * Piece types in the order {@link #hasLegalMove} tries them: table lookups
+     * first, then the king's attack tests, then the sliders
+     */
+    private static final ChessPiece.PieceType[] CHEAPEST_FIRST = {
+            ChessPiece.PieceType.PAWN,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.KING,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.QUEEN};
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Appends every legal move for the given team to the list
+     */
+    static void generateLegal(ChessBoard board, ChessGame.TeamColor color, MoveList out) {
+        int king = board.kingSquare(color);
+        long own = board.getOccupancy(color);
+        if (king < 0) {
+            while (own != 0) {
+                int from = Long.numberOfTrailingZeros(own);
+                own &= own - 1;
+                board.getPiece(from).pieceMoves(board, from, out);
+            }
+            return;
+        }
+
+        ChessGame.TeamColor enemy = opponent(color);
+        long checkers = board.attackersTo(king, enemy, board.getOccupancy());
+        board.getPiece(king).pieceMoves(board, king, kingTargets(board, enemy, king), out);
+        if ((checkers & checkers - 1) != 0) {
+            return;
+        }
+
+        long evasions = evasionMask(king, checkers);
+        long pinned = pinned(board, color, enemy, king);
+        long others = own & ~(1L << king);
+        while (others != 0) {
+            int from = Long.numberOfTrailingZeros(others);
+            others &= others - 1;
+            long allowed = (pinned >>> from & 1) != 0 ? evasions & Attacks.line(king, from) : evasions;
+            board.getPiece(from).pieceMoves(board, from, allowed, out);
+        }
+    }
+
+    /**
+     * Determines if a team has at least one legal move, using the same masks as
+     * {@link #generateLegal} but stopping at the first piece with any target
+     * square. Nothing is added to a move list.
+     */
+    static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color) {
+        int king = board.kingSquare(color);
+        ChessGame.TeamColor enemy = opponent(color);
+        long evasions = -1L;
+        long pinned = 0;
+        if (king >= 0) {
+            long checkers = board.attackersTo(king, enemy, board.getOccupancy());
+            if ((checkers & checkers - 1) != 0) {
+                return kingTargets(board, enemy, king) != 0;
+            }
+            evasions = evasionMask(king, checkers);
+            pinned = pinned(board, color, enemy, king);
+        }
+
+        for (ChessPiece.PieceType type : CHEAPEST_FIRST) {
+            long pieces = board.getPieces(color, type);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long allowed;
+                if (from == king) {
+                    allowed = kingTargets(board, enemy, king);
+                } else if ((pinned >>> from & 1) != 0) {
+                    allowed = evasions & Attacks.line(king, from);
+                } else {
+                    allowed = evasions;
+                }
+                if (board.getPiece(from).targets(board, from, allowed) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the squares the king can step to without being attacked. The king
+     * is lifted off the occupancy so a slider's ray continues past its square.
+     */
+    private static long kingTargets(ChessBoard board, ChessGame.TeamColor enemy, int king) {
+        long occupied = board.getOccupancy() & ~(1L << king);
+        long candidates = Attacks.kingAttacks(king) & ~board.getOccupancy(opponent(enemy));
+        long safe = 0;
+        while (candidates != 0) {
+            int to = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if (board.attackersTo(to, enemy, occupied) == 0) {
+                safe |= 1L << to;
+            }
+        }
+        return safe;
+    }
+
+    /**
+     * @return every square when not in check, otherwise the single checker and
+     * the squares between it and the king
+     */
+    private static long evasionMask(int king, long checkers) {
+        if (checkers == 0) {
+            return -1L;
+        }
+        int checker = Long.numberOfTrailingZeros(checkers);
+        return checkers | Attacks.between(king, checker);
+    }
+
+    /**
+     * @return the team's pieces that are the only piece between their king and
+     * an enemy slider lined up on it
+     */
+    private static long pinned(ChessBoard board, ChessGame.TeamColor color, ChessGame.TeamColor enemy, int king) {
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rookAttacks(king, 0) & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishopAttacks(king, 0) & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long occupied = board.getOccupancy();
+        long own = board.getOccupancy(color);
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if (blockers != 0 && (blockers & blockers - 1) == 0) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * A reusable list of {@link PackedMove} ints. Generators append to it and
+ * callers {@link #clear()} it between positions, so a search can keep one list
+ * per ply and generate moves without allocating.
+ */
+public final class MoveList {
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(256);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    /**
+     * Drops every move from the given index on
+     */
+    void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * @return the moves as {@link ChessMove} objects, for the Collection based API
+     */
+    public Collection<ChessMove> toChessMoves() {
+        HashSet<ChessMove> chessMoves = HashSet.newHashSet(size);
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(PackedMove.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+
+    /**
+     * @return the moves starting on the given square, as {@link ChessMove} objects
+     */
+    Collection<ChessMove> toChessMovesFrom(int from) {
+        HashSet<ChessMove> chessMoves = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            if (PackedMove.from(moves[i]) == from) {
+                chessMoves.add(PackedMove.toChessMove(moves[i]));
+            }
+        }
+        return chessMoves;
+    }
+}
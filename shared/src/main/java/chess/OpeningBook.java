@@ -0,0 +1,158 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book in the Polyglot file layout, memory-mapped so that
+ * lookups read the file directly instead of loading it onto the heap.
+ * <p>
+ * The file is a run of 16-byte big-endian entries sorted by key:
+ * <pre>
+ * bytes  0-7   position key
+ * bytes  8-9   move: bits 0-5 end square, 6-11 start square,
+ *              12-14 promotion (1 knight, 2 bishop, 3 rook, 4 queen)
+ * bytes 10-11  weight
+ * bytes 12-15  learning data, unused
+ * </pre>
+ * Squares are numbered as in {@link ChessBoard}. The position key is
+ * {@link ChessGame#positionKey()} rather than Polyglot's own hash, so books
+ * must be built with {@link OpeningBookBuilder}.
+ * <p>
+ * Lookups are a binary search over the mapped file and allocate nothing; only
+ * {@link #getMove(ChessGame, RandomGenerator)} creates the {@link ChessMove} it
+ * returns. A book is safe to share between threads.
+ */
+public final class OpeningBook {
+
+    static final int ENTRY_BYTES = 16;
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Maps a book file. The mapping stays valid after the file is closed, until
+     * the book is garbage collected.
+     *
+     * @throws IOException if the file cannot be read or is not a whole number of entries
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the index of the first entry for the key, or -1 if the book has no
+     * moves for it
+     */
+    public int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(getKey(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < size && getKey(low) == key ? low : -1;
+    }
+
+    /**
+     * @return how many moves the book has for the key
+     */
+    public int count(long key) {
+        int first = find(key);
+        if (first < 0) {
+            return 0;
+        }
+        int end = first + 1;
+        while (end < size && getKey(end) == key) {
+            end++;
+        }
+        return end - first;
+    }
+
+    public long getKey(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    /**
+     * @return the entry's move as a {@link PackedMove}, without the capture flag
+     */
+    public int getMove(int index) {
+        int move = entries.getShort(index * ENTRY_BYTES + 8) & 0xFFFF;
+        int from = move >>> 6 & 63;
+        int to = move & 63;
+        return switch (move >>> 12 & 7) {
+            case 1 -> PackedMove.promotion(from, to, ChessPiece.PieceType.KNIGHT, 0);
+            case 2 -> PackedMove.promotion(from, to, ChessPiece.PieceType.BISHOP, 0);
+            case 3 -> PackedMove.promotion(from, to, ChessPiece.PieceType.ROOK, 0);
+            case 4 -> PackedMove.promotion(from, to, ChessPiece.PieceType.QUEEN, 0);
+            default -> PackedMove.of(from, to, 0);
+        };
+    }
+
+    public int getWeight(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+
+    /**
+     * Picks one of the key's moves with probability proportional to its weight
+     *
+     * @param random a number from 0 inclusive to 1 exclusive
+     * @return the chosen {@link PackedMove}, or -1 if the book has no moves for the key
+     */
+    public int pickMove(long key, double random) {
+        int first = find(key);
+        if (first < 0) {
+            return -1;
+        }
+        long total = 0;
+        for (int i = first; i < size && getKey(i) == key; i++) {
+            total += getWeight(i);
+        }
+        long target = (long) (random * total);
+        int last = first;
+        for (int i = first; i < size && getKey(i) == key; i++) {
+            target -= getWeight(i);
+            if (target < 0) {
+                return getMove(i);
+            }
+            last = i;
+        }
+        // Every weight is zero; fall back to the last listed move
+        return getMove(last);
+    }
+
+    /**
+     * @return a weighted random book move for the game's current position, or
+     * null if the position is not in the book
+     */
+    public ChessMove getMove(ChessGame game, RandomGenerator random) {
+        int move = pickMove(game.positionKey(), random.nextDouble());
+        return move < 0 ? null : PackedMove.toChessMove(move);
+    }
+}
@@ -0,0 +1,191 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from a collection of games.
+ * <p>
+ * Every game starts from the standard position. For each of its first moves the
+ * builder credits the move in the position it was played from: 2 for a move by
+ * the team that went on to win, 1 for a draw or unknown result, and nothing for
+ * the losing team. Moves that end up with no credit are left out of the book.
+ * <p>
+ * Run from the project root after {@code mvn compile}:
+ * <pre>
+ * java -cp shared/target/classes chess.OpeningBookBuilder games.txt book.bin [plies]
+ * </pre>
+ * where games.txt holds one game per line as moves in coordinate notation
+ * ("e2e4 e7e5 g1f3"), optionally followed by a result: 1-0, 0-1 or 1/2-1/2.
+ */
+public final class OpeningBookBuilder {
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final int maxPlies;
+    /**
+     * Credit per position key, then per Polyglot-encoded move
+     */
+    private final Map<Long, Map<Integer, Long>> weights = new HashMap<>();
+    private int games;
+
+    /**
+     * @param maxPlies how many moves of each game, counting both teams, go into the book
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        if (maxPlies < 1) {
+            throw new IllegalArgumentException("maxPlies must be at least 1");
+        }
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Replays a game from the standard position and credits its opening moves.
+     * Nothing is added if any of those moves is illegal.
+     *
+     * @param winner the team that won, or null for a draw or unknown result
+     * @throws InvalidMoveException if one of the moves is illegal where it is played
+     */
+    public void addGame(List<ChessMove> moves, ChessGame.TeamColor winner) throws InvalidMoveException {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        int plies = Math.min(moves.size(), maxPlies);
+        long[] keys = new long[plies];
+        int[] credits = new int[plies];
+        int[] encoded = new int[plies];
+        for (int ply = 0; ply < plies; ply++) {
+            ChessMove move = moves.get(ply);
+            ChessGame.TeamColor mover = game.getTeamTurn();
+            keys[ply] = game.positionKey();
+            encoded[ply] = encode(move);
+            credits[ply] = winner == null ? 1 : winner == mover ? 2 : 0;
+            game.makeMove(move);
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            if (credits[ply] > 0) {
+                weights.computeIfAbsent(keys[ply], key -> new HashMap<>())
+                        .merge(encoded[ply], (long) credits[ply], Long::sum);
+            }
+        }
+        games++;
+    }
+
+    /**
+     * @return the number of games added
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return the number of entries the book will have
+     */
+    public int size() {
+        int size = 0;
+        for (Map<Integer, Long> moves : weights.values()) {
+            size += moves.size();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the book, sorted by key and, for each key, by weight from highest
+     * to lowest. Weights too large for the file are scaled down together.
+     */
+    public void write(Path file) throws IOException {
+        long maxWeight = 0;
+        for (Map<Integer, Long> moves : weights.values()) {
+            for (long weight : moves.values()) {
+                maxWeight = Math.max(maxWeight, weight);
+            }
+        }
+        Long[] keys = weights.keySet().toArray(new Long[0]);
+        Arrays.sort(keys, Long::compareUnsigned);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size() * OpeningBook.ENTRY_BYTES);
+        for (Long key : keys) {
+            List<Map.Entry<Integer, Long>> moves = new ArrayList<>(weights.get(key).entrySet());
+            moves.sort(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+            for (Map.Entry<Integer, Long> move : moves) {
+                long weight = maxWeight > MAX_WEIGHT ? Math.max(1, move.getValue() * MAX_WEIGHT / maxWeight)
+                        : move.getValue();
+                buffer.putLong(key).putShort((short) (int) move.getKey()).putShort((short) weight).putInt(0);
+            }
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * @return the move in the book's 16-bit move format
+     */
+    private static int encode(ChessMove move) {
+        int promotion = 0;
+        if (move.getPromotionPiece() != null) {
+            promotion = switch (move.getPromotionPiece()) {
+                case KNIGHT -> 1;
+                case BISHOP -> 2;
+                case ROOK -> 3;
+                case QUEEN -> 4;
+                default -> throw new IllegalArgumentException("Cannot promote to " + move.getPromotionPiece());
+            };
+        }
+        return ChessBoard.square(move.getEndPosition()) | ChessBoard.square(move.getStartPosition()) << 6
+                | promotion << 12;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookBuilder <games.txt> <book.bin> [plies]");
+            System.exit(2);
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(args.length > 2 ? Integer.parseInt(args[2]) : 16);
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(args[0]))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].isEmpty()) {
+                    continue;
+                }
+                List<ChessMove> moves = new ArrayList<>(tokens.length);
+                ChessGame.TeamColor winner = null;
+                try {
+                    for (String token : tokens) {
+                        switch (token) {
+                            case "1-0" -> winner = ChessGame.TeamColor.WHITE;
+                            case "0-1" -> winner = ChessGame.TeamColor.BLACK;
+                            case "1/2-1/2", "*" -> winner = null;
+                            default -> moves.add(PackedMove.toChessMove(PackedMove.parse(token)));
+                        }
+                    }
+                    builder.addGame(moves, winner);
+                } catch (IllegalArgumentException | InvalidMoveException e) {
+                    skipped++;
+                }
+            }
+        }
+        builder.write(Path.of(args[1]));
+        System.out.printf("Games: %d (skipped %d)%nEntries: %d%n", builder.getGames(), skipped, builder.size());
+    }
+}
@@ -0,0 +1,135 @@
+package chess;
+
+/**
+ * Encodes a move in the low 16 bits of an int so move lists can be plain int
+ * arrays instead of {@link ChessMove} objects.
+ * <pre>
+ * bits  0-5   start square (see {@link ChessBoard}: 0 is row 1, column 1)
+ * bits  6-11  end square
+ * bits 12-13  promotion piece: queen, rook, bishop, knight
+ * bit  14     {@link #PROMOTION}
+ * bit  15     {@link #CAPTURE}
+ * </pre>
+ */
+public final class PackedMove {
+
+    public static final int PROMOTION = 1 << 14;
+    public static final int CAPTURE = 1 << 15;
+
+    private static final ChessPiece.PieceType[] PROMOTION_TYPES = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private PackedMove() {
+    }
+
+    /**
+     * @param flags {@link #CAPTURE} or 0
+     */
+    public static int of(int from, int to, int flags) {
+        return from | to << 6 | flags;
+    }
+
+    /**
+     * @param type  the piece the pawn becomes; must be a queen, rook, bishop or knight
+     * @param flags {@link #CAPTURE} or 0
+     */
+    public static int promotion(int from, int to, ChessPiece.PieceType type, int flags) {
+        int code = switch (type) {
+            case QUEEN -> 0;
+            case ROOK -> 1;
+            case BISHOP -> 2;
+            case KNIGHT -> 3;
+            default -> throw new IllegalArgumentException("Cannot promote to " + type);
+        };
+        return from | to << 6 | code << 12 | PROMOTION | flags;
+    }
+
+    /**
+     * Packs a move without the capture flag, since that depends on the board
+     */
+    public static int of(ChessMove move) {
+        int from = ChessBoard.square(move.getStartPosition());
+        int to = ChessBoard.square(move.getEndPosition());
+        if (move.getPromotionPiece() == null) {
+            return of(from, to, 0);
+        }
+        return promotion(from, to, move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & PROMOTION) != 0;
+    }
+
+    /**
+     * @return the promotion piece type, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotionPiece(int move) {
+        return isPromotion(move) ? PROMOTION_TYPES[move >>> 12 & 3] : null;
+    }
+
+    /**
+     * @return the move in coordinate notation, columns a-h and rows 1-8, with a
+     * trailing q, r, b or n for promotions: "e2e4", "a7a8q"
+     */
+    public static String toString(int move) {
+        StringBuilder text = new StringBuilder(5)
+                .append((char) ('a' + from(move) % 8)).append((char) ('1' + from(move) / 8))
+                .append((char) ('a' + to(move) % 8)).append((char) ('1' + to(move) / 8));
+        if (isPromotion(move)) {
+            text.append("qrbn".charAt(move >>> 12 & 3));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads a move written by {@link #toString(int)}. The capture flag is not
+     * set, since that depends on the board.
+     *
+     * @throws IllegalArgumentException if the text is not a move in coordinate notation
+     */
+    public static int parse(CharSequence text) {
+        int length = text.length();
+        if (length != 4 && length != 5) {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        int from = square(text, 0);
+        int to = square(text, 2);
+        if (length == 4) {
+            return of(from, to, 0);
+        }
+        int code = "qrbn".indexOf(Character.toLowerCase(text.charAt(4)));
+        if (code < 0) {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        return promotion(from, to, PROMOTION_TYPES[code], 0);
+    }
+
+    private static int square(CharSequence text, int offset) {
+        int column = text.charAt(offset) - 'a';
+        int row = text.charAt(offset + 1) - '1';
+        if (column < 0 || column > 7 || row < 0 || row > 7) {
+            throw new IllegalArgumentException("Not a move: " + text);
+        }
+        return row * 8 + column;
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotionPiece(move));
+    }
+}
@@ -0,0 +1,249 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions reachable in exactly n moves from a game's current
+ * position ("perft"). The counts are known for many positions, so they check
+ * the move generator, and the time taken measures its speed.
+ * <p>
+ * Run from the project root after {@code mvn compile}:
+ * <pre>
+ * java -cp shared/target/classes chess.Perft [depth]
+ * </pre>
+ * which prints the count below each root move, the total and nodes per second
+ * for the starting position. Adding {@code --scaling} instead times
+ * {@link #parallelPerft} on 1 to N worker threads against the single-threaded
+ * count:
+ * <pre>
+ * java -cp shared/target/classes chess.Perft 6 --scaling
+ * </pre>
+ */
+public class Perft {
+
+    /**
+     * Parallel counts split the tree into tasks until this many plies are left,
+     * then count each subtree on one thread
+     */
+    private static final int SEQUENTIAL_DEPTH = 4;
+
+    private final ChessGame game;
+    private final TranspositionTable table;
+    private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+    private final MoveList[] moveLists = new MoveList[64];
+
+    /**
+     * @param game the game to count from; its board is changed during a count
+     *             and restored before returning
+     */
+    public Perft(ChessGame game) {
+        this(game, null);
+    }
+
+    /**
+     * @param game  the game to count from; its board is changed during a count
+     *              and restored before returning
+     * @param table where to remember subtree counts, so a position reached again
+     *              by a different move order is counted once; may be null, and
+     *              may be shared with other counts running at the same time
+     */
+    public Perft(ChessGame game, TranspositionTable table) {
+        this.game = game;
+        this.table = table;
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * @param depth how many moves (plies) deep to count
+     * @return the number of move sequences of that length from the current position
+     */
+    public long perft(int depth) {
+        return count(game.getTeamTurn(), depth, 0);
+    }
+
+    /**
+     * @return the perft count below each legal root move, keyed by the move in
+     * {@link PackedMove#toString(int)} notation, in generation order
+     */
+    public Map<String, Long> divide(int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        ChessGame.TeamColor side = game.getTeamTurn();
+        MoveList moves = new MoveList();
+        game.generateLegal(side, moves);
+        ChessBoard board = game.getBoard();
+        for (int i = 0; i < moves.size(); i++) {
+            int undo = board.make(moves.get(i));
+            counts.put(PackedMove.toString(moves.get(i)), count(opponent(side), depth - 1, 0));
+            board.unmake(undo);
+        }
+        return counts;
+    }
+
+    /**
+     * Same count as {@link #perft(int)}, split across a fork/join pool. Each task
+     * plays its move on its own copy of the board, so the game's board is only
+     * read.
+     *
+     * @param depth how many moves (plies) deep to count
+     * @param pool  the pool to run the count on
+     * @return the number of move sequences of that length from the current position
+     */
+    public long parallelPerft(int depth, ForkJoinPool pool) {
+        if (depth == 0) {
+            return 1;
+        }
+        ThreadLocal<Perft> workers = ThreadLocal.withInitial(() -> new Perft(new ChessGame(), table));
+        return pool.invoke(new PerftTask(new ChessBoard(game.getBoard()), game.getTeamTurn(), depth, true, workers));
+    }
+
+    /**
+     * Counts one subtree, forking a task per move while the subtree is deeper
+     * than {@link #SEQUENTIAL_DEPTH}. The root always forks so every root move
+     * can run on its own worker. Subtrees are counted by their worker thread's
+     * own {@link Perft}, so its move lists are made once per thread rather than
+     * once per task.
+     */
+    private static class PerftTask extends RecursiveTask<Long> {
+        private final ChessBoard board;
+        private final ChessGame.TeamColor side;
+        private final int depth;
+        private final boolean root;
+        private final ThreadLocal<Perft> workers;
+
+        PerftTask(ChessBoard board, ChessGame.TeamColor side, int depth, boolean root, ThreadLocal<Perft> workers) {
+            this.board = board;
+            this.side = side;
+            this.depth = depth;
+            this.root = root;
+            this.workers = workers;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth == 1 || (!root && depth <= SEQUENTIAL_DEPTH)) {
+                Perft perft = workers.get();
+                perft.game.setBoard(board);
+                perft.game.setTeamTurn(side);
+                return perft.perft(depth);
+            }
+
+            ChessGame game = new ChessGame();
+            game.setBoard(board);
+            game.setTeamTurn(side);
+            MoveList moves = new MoveList();
+            game.generateLegal(moves);
+            List<PerftTask> tasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                ChessBoard child = new ChessBoard(board);
+                child.make(moves.get(i));
+                tasks.add(new PerftTask(child, opponent(side), depth - 1, false, workers));
+            }
+            long nodes = 0;
+            for (PerftTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    private long count(ChessGame.TeamColor side, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = moveLists[ply];
+        game.generateLegal(side, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        ChessBoard board = game.getBoard();
+        long key = 0;
+        if (table != null) {
+            key = side == ChessGame.TeamColor.BLACK ? board.positionKey() ^ Zobrist.blackToMove() : board.positionKey();
+            if (table.probe(key, entry) && entry.getDepth() == depth) {
+                return entry.getValue();
+            }
+        }
+        ChessGame.TeamColor next = opponent(side);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int undo = board.make(moves.get(i));
+            nodes += count(next, depth - 1, ply + 1);
+            board.unmake(undo);
+        }
+        if (table != null) {
+            table.store(key, depth, 0, TranspositionTable.EXACT, nodes);
+        }
+        return nodes;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor side) {
+        return side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        if (args.length > 1 && args[1].equals("--scaling")) {
+            printScaling(new Perft(game), depth);
+            return;
+        }
+
+        long start = System.nanoTime();
+        long total = 0;
+        for (var entry : new Perft(game).divide(depth).entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println();
+        System.out.println("Nodes: " + total);
+        System.out.printf("Time: %.3f s%n", seconds);
+        System.out.printf("Nodes/sec: %.0f%n", total / seconds);
+    }
+
+    /**
+     * Prints the time and nodes per second of a single-threaded count, then of
+     * parallel counts on 1 to N workers with each one's speedup over it
+     */
+    private static void printScaling(Perft perft, int depth) {
+        // Warm up both paths so the first timed row does not include JIT compilation
+        perft.perft(depth);
+        perft.parallelPerft(depth, ForkJoinPool.commonPool());
+
+        long start = System.nanoTime();
+        long nodes = perft.perft(depth);
+        double baseline = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-10s %12s %10s %14s %8s%n", "Threads", "Nodes", "Time (s)", "Nodes/sec", "Speedup");
+        System.out.printf("%-10s %12d %10.3f %14.0f %8.2f%n", "serial", nodes, baseline, nodes / baseline, 1.0);
+
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                start = System.nanoTime();
+                long parallelNodes = perft.parallelPerft(depth, pool);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if (parallelNodes != nodes) {
+                    throw new IllegalStateException("Parallel count " + parallelNodes + " differs from " + nodes);
+                }
+                System.out.printf("%-10d %12d %10.3f %14.0f %8.2f%n",
+                        threads, parallelNodes, seconds, parallelNodes / seconds, baseline / seconds);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
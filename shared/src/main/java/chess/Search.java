@@ -0,0 +1,401 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Picks a move for the side to move with a negamax alpha-beta search.
+ * <p>
+ * The search deepens one ply at a time until it reaches the depth limit or
+ * runs out of nodes or time; the answer is the best move of the deepest
+ * iteration that finished. At the end of the main search a quiescence search
+ * plays out captures and promotions so positions are not scored in the middle
+ * of an exchange.
+ * <p>
+ * Moves are tried best-guess first, which is what makes alpha-beta prune:
+ * <ol>
+ *     <li>the best move of the previous iteration, at the root</li>
+ *     <li>captures, most valuable victim first and cheapest attacker first among
+ *     those (MVV-LVA), and promotions</li>
+ *     <li>two "killer" quiet moves per ply that caused a cutoff in a sibling</li>
+ *     <li>other quiet moves by how often they have caused cutoffs (history)</li>
+ * </ol>
+ * Results are kept in a {@link TranspositionTable}, so a position reached
+ * again by another move order, or in the next iteration, can be answered or
+ * at least ordered by the best move found for it before.
+ * <p>
+ * A search works on its own copy of the game's board. One instance can run
+ * many searches, one at a time; use a separate instance per thread. Instances
+ * may share a table.
+ */
+public class Search {
+
+    /**
+     * Score of delivering mate now; a mate n plies away scores MATE - n
+     */
+    public static final int MATE = 100_000;
+
+    /**
+     * Deepest iteration a search will start
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * Deepest ply reachable counting quiescence and check extensions
+     */
+    static final int MAX_PLY = 128;
+
+    private static final int DEFAULT_TABLE_MEGABYTES = 8;
+    private static final int INFINITY = MATE + 1;
+    private static final int CHECK_TIME_EVERY = 2048;
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int FIRST_KILLER_SCORE = 1 << 28;
+    private static final int SECOND_KILLER_SCORE = FIRST_KILLER_SCORE - 1;
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] moveScores = new int[MAX_PLY][];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[12][64];
+    private final TranspositionTable table;
+    private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+    private ChessBoard board;
+    private long nodes;
+    private long maxNodes;
+    private long deadline;
+    private boolean stopped;
+    private int rootBestMove;
+
+    /**
+     * Creates a search with its own 8 MB transposition table
+     */
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * @param table where to keep results between positions and searches
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            moveScores[ply] = new int[256];
+        }
+    }
+
+    /**
+     * Searches the game's current position for the team whose turn it is. The
+     * game itself is not changed.
+     *
+     * @param game   the game to pick a move in
+     * @param limits when to stop searching
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        ChessGame.TeamColor side = game.getTeamTurn();
+        if (side == null || game.getBoard() == null) {
+            throw new IllegalArgumentException("Game has no board or side to move");
+        }
+        long start = System.nanoTime();
+        board = new ChessBoard(game.getBoard());
+        nodes = 0;
+        maxNodes = limits.getMaxNodes();
+        deadline = limits.getMaxMillis() == SearchLimits.UNLIMITED
+                ? Long.MAX_VALUE : start + limits.getMaxMillis() * 1_000_000;
+        stopped = false;
+        rootBestMove = 0;
+        table.newSearch();
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, 0);
+        }
+        for (int[] pieceHistory : history) {
+            Arrays.fill(pieceHistory, 0);
+        }
+
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.generateLegal(board, side, rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = inCheck(side) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, elapsedMillis(start));
+        }
+
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= limits.getMaxDepth(); depth++) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY, side, bestMove);
+            if (stopped) {
+                break;
+            }
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+            // A forced mate found within this depth cannot be improved on by searching deeper
+            if (Math.abs(score) >= MATE - depth) {
+                break;
+            }
+        }
+        return new SearchResult(PackedMove.toChessMove(bestMove), bestScore, completedDepth, nodes,
+                elapsedMillis(start));
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, ChessGame.TeamColor side, int hashMove) {
+        if (countNode()) {
+            return 0;
+        }
+        long key = side == ChessGame.TeamColor.BLACK ? board.positionKey() ^ Zobrist.blackToMove() : board.positionKey();
+        if (table.probe(key, entry)) {
+            if (ply > 0 && entry.getDepth() >= depth) {
+                int stored = fromTable((int) entry.getValue(), ply);
+                if (entry.getBound() == TranspositionTable.EXACT
+                        || (entry.getBound() == TranspositionTable.LOWER && stored >= beta)
+                        || (entry.getBound() == TranspositionTable.UPPER && stored <= alpha)) {
+                    return stored;
+                }
+            }
+            if (hashMove == 0) {
+                hashMove = entry.getMove();
+            }
+        }
+        int searchedDepth = depth;
+        int originalAlpha = alpha;
+        boolean inCheck = inCheck(side);
+        if (inCheck && ply + depth < MAX_PLY - 1) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta, side);
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        MoveGenerator.generateLegal(board, side, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, ply, hashMove);
+
+        ChessGame.TeamColor other = opponent(side);
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            int undo = board.make(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, other, 0);
+            board.unmake(undo);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                if (!PackedMove.isCapture(move) && !PackedMove.isPromotion(move)) {
+                    rememberCutoff(move, ply, depth);
+                }
+                break;
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, searchedDepth, bestMove, bound, toTable(best, ply));
+        return best;
+    }
+
+    /**
+     * Mate scores count plies from the root, but a stored position can be reached
+     * at any ply, so the table keeps them counted from the position itself
+     */
+    private static int toTable(int score, int ply) {
+        if (score > MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score < -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score < -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Searches only captures and promotions until the position is quiet. The side
+     * to move may stand pat on the static evaluation instead, unless it is in
+     * check, in which case every evasion is searched.
+     */
+    private int quiescence(int ply, int alpha, int beta, ChessGame.TeamColor side) {
+        if (countNode()) {
+            return 0;
+        }
+        boolean inCheck = inCheck(side);
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = Evaluation.evaluate(board, side);
+            if (best >= beta || ply >= MAX_PLY - 1) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        } else if (ply >= MAX_PLY - 1) {
+            return Evaluation.evaluate(board, side);
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        MoveGenerator.generateLegal(board, side, moves);
+        if (inCheck && moves.isEmpty()) {
+            return -MATE + ply;
+        }
+        if (!inCheck) {
+            int kept = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+                    moves.set(kept++, move);
+                }
+            }
+            moves.truncate(kept);
+        }
+        scoreMoves(moves, ply, 0);
+
+        ChessGame.TeamColor other = opponent(side);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            int undo = board.make(move);
+            int score = -quiescence(ply + 1, -beta, -alpha, other);
+            board.unmake(undo);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts a visited position and checks the budgets, reading the clock only
+     * every {@link #CHECK_TIME_EVERY} nodes
+     *
+     * @return True if the search must stop
+     */
+    private boolean countNode() {
+        if (stopped) {
+            return true;
+        }
+        nodes++;
+        if (nodes >= maxNodes || (nodes % CHECK_TIME_EVERY == 0 && System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int hashMove) {
+        if (moveScores[ply].length < moves.size()) {
+            moveScores[ply] = new int[moves.size()];
+        }
+        int[] scores = moveScores[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = PackedMove.from(move);
+            int to = PackedMove.to(move);
+            ChessPiece mover = board.getPiece(from);
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+                int victim = PackedMove.isCapture(move)
+                        ? Evaluation.PIECE_VALUES[board.getPiece(to).getPieceType().ordinal()] : 0;
+                int promotion = PackedMove.isPromotion(move)
+                        ? Evaluation.PIECE_VALUES[PackedMove.promotionPiece(move).ordinal()] : 0;
+                scores[i] = CAPTURE_SCORE + (victim + promotion) * 16
+                        - Evaluation.PIECE_VALUES[mover.getPieceType().ordinal()];
+            } else if (move == killers[ply][0]) {
+                scores[i] = FIRST_KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = SECOND_KILLER_SCORE;
+            } else {
+                scores[i] = history[ChessBoard.pieceIndex(mover.getTeamColor(), mover.getPieceType())][to];
+            }
+        }
+    }
+
+    /**
+     * Swaps the highest scored of the moves from index on into place and returns
+     * it, so only as much of the list is sorted as the search gets through
+     */
+    private int pickNext(MoveList moves, int ply, int index) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        if (best != index) {
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return move;
+    }
+
+    private void rememberCutoff(int move, int ply, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        ChessPiece mover = board.getPiece(PackedMove.from(move));
+        int[] pieceHistory = history[ChessBoard.pieceIndex(mover.getTeamColor(), mover.getPieceType())];
+        pieceHistory[PackedMove.to(move)] += depth * depth;
+        if (pieceHistory[PackedMove.to(move)] > HISTORY_LIMIT) {
+            for (int[] row : history) {
+                for (int to = 0; to < row.length; to++) {
+                    row[to] /= 2;
+                }
+            }
+        }
+    }
+
+    private boolean inCheck(ChessGame.TeamColor side) {
+        int king = board.kingSquare(side);
+        return king >= 0 && board.isSquareAttacked(king, opponent(side));
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor side) {
+        return side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
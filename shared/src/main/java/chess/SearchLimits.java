@@ -0,0 +1,70 @@
+package chess;
+
+/**
+ * Hard budgets for a {@link Search}. The search stops at whichever limit it
+ * reaches first and answers with the deepest iteration it finished.
+ */
+public class SearchLimits {
+
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxMillis;
+
+    /**
+     * @param maxDepth  deepest iteration to search, in plies (at most {@link Search#MAX_DEPTH})
+     * @param maxNodes  most positions to visit, or {@link #UNLIMITED}
+     * @param maxMillis most wall-clock time to spend, or {@link #UNLIMITED}
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxMillis) {
+        if (maxDepth < 1 || maxNodes < 1 || maxMillis < 1) {
+            throw new IllegalArgumentException("Search limits must be positive");
+        }
+        this.maxDepth = Math.min(maxDepth, Search.MAX_DEPTH);
+        this.maxNodes = maxNodes;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * @return limits that only cap the depth
+     */
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * @return limits that only cap the time, searching as deep as it allows
+     */
+    public static SearchLimits millis(long maxMillis) {
+        return new SearchLimits(Search.MAX_DEPTH, UNLIMITED, maxMillis);
+    }
+
+    /**
+     * @return limits that only cap the number of positions visited
+     */
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(Search.MAX_DEPTH, maxNodes, UNLIMITED);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits{" +
+                "maxDepth=" + maxDepth +
+                ", maxNodes=" + maxNodes +
+                ", maxMillis=" + maxMillis +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package chess;
+
+/**
+ * The outcome of a {@link Search}: the move it picked and what it knows about it
+ */
+public class SearchResult {
+
+    private final ChessMove bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+
+    SearchResult(ChessMove bestMove, int score, int depth, long nodes, long millis) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    /**
+     * @return the move to play, or null if the side to move has no legal move
+     */
+    public ChessMove getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return the score in centipawns for the side to move; mates are reported as
+     * {@link Search#MATE} less the number of plies to the mate
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return True if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) > Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * @return the deepest iteration that finished, in plies
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "bestMove=" + bestMove +
+                ", score=" + score +
+                ", depth=" + depth +
+                ", nodes=" + nodes +
+                ", millis=" + millis +
+                '}';
+    }
+}
@@ -0,0 +1,558 @@
+package chess;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds the {@link Tablebases} files for endgames of up to four pieces by
+ * retrograde analysis.
+ * <p>
+ * Every position of the table is first examined once: checkmates are lost in
+ * 0 plies, stalemates are drawn, and moves that leave the table (captures and
+ * promotions) are scored from the smaller tables, which are built first. Then,
+ * one ply at a time, the results are walked backwards by un-making moves: a
+ * position that can move into a loss is won one ply later, and a position whose
+ * every move has been found to lead to a win for the other side is lost one ply
+ * later. Positions left undecided when nothing changes are draws. Both the
+ * first pass and each ply are split across a fork/join pool.
+ * <p>
+ * Distances are counted in plies, at most 254 so each fits in a byte; a table
+ * with longer mates fails to build rather than be written wrong. A 4-piece
+ * table needs 2<sup>25</sup> bytes for each of four work arrays while it is built.
+ * <p>
+ * Run from the project root after {@code mvn compile}:
+ * <pre>
+ * java -cp shared/target/classes chess.TablebaseGenerator tablebases KQvK KRvK KPvK
+ * </pre>
+ * to build the named tables, and the ones they depend on, into a directory.
+ */
+public final class TablebaseGenerator {
+
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private static final byte UNKNOWN = -1;
+    /**
+     * The longest distance a table can hold: one below {@link #CANNOT_LOSE}, so
+     * a distance never reads back as that mark
+     */
+    private static final int MAX_PLIES = 0xFE;
+    /**
+     * {@link Build#exitLoss} value for a position that can leave the table
+     * without losing, so can never be lost
+     */
+    private static final byte CANNOT_LOSE = (byte) 0xFF;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final int SPLIT = 4096;
+
+    private final ForkJoinPool pool;
+    private final Path directory;
+
+    /**
+     * @param pool      the pool to spread the work across
+     * @param directory where the tables are written, and where existing ones are reused from
+     */
+    public TablebaseGenerator(ForkJoinPool pool, Path directory) {
+        this.pool = pool;
+        this.directory = directory;
+    }
+
+    /**
+     * Builds a table, and first every table it depends on, skipping those
+     * already in the directory
+     *
+     * @param name the table's material, e.g. "KRvK"; either colouring is accepted
+     * @return the tables built, dependencies first; empty if the table was already there
+     * @throws IllegalArgumentException if the name is not a table of up to four pieces
+     */
+    public List<TablebaseStats> generate(String name) throws IOException {
+        List<TablebaseStats> built = new ArrayList<>();
+        generate(Tablebases.canonical(Tablebases.parse(name)), built);
+        return built;
+    }
+
+    private void generate(int[] pieces, List<TablebaseStats> built) throws IOException {
+        if (Files.exists(directory.resolve(Tablebases.name(pieces) + ".wdl"))) {
+            return;
+        }
+        for (int[] dependency : dependencies(pieces)) {
+            generate(Tablebases.canonical(dependency), built);
+        }
+        Files.createDirectories(directory);
+        built.add(new Build(pieces, Tablebases.open(directory)).run());
+    }
+
+    /**
+     * @return the materials a move can lead to: one piece captured, or one pawn promoted
+     */
+    private static List<int[]> dependencies(int[] pieces) {
+        List<int[]> dependencies = new ArrayList<>();
+        for (int i = 0; i < pieces.length; i++) {
+            int type = pieces[i] % 6;
+            if (type == ChessPiece.PieceType.KING.ordinal()) {
+                continue;
+            }
+            int[] captured = new int[pieces.length - 1];
+            System.arraycopy(pieces, 0, captured, 0, i);
+            System.arraycopy(pieces, i + 1, captured, i, pieces.length - i - 1);
+            dependencies.add(captured);
+            if (type == ChessPiece.PieceType.PAWN.ordinal()) {
+                for (int promotion = ChessPiece.PieceType.QUEEN.ordinal();
+                     promotion < ChessPiece.PieceType.PAWN.ordinal(); promotion++) {
+                    int[] promoted = pieces.clone();
+                    promoted[i] = pieces[i] - type + promotion;
+                    Arrays.sort(promoted);
+                    dependencies.add(promoted);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * The work arrays for one table
+     */
+    private class Build {
+        private final int[] pieces;
+        private final int count;
+        private final int size;
+        private final Tablebases smaller;
+        /**
+         * {@link Tablebases#WDL_WIN}, LOSS, DRAW or ILLEGAL, or {@link #UNKNOWN}
+         */
+        private final byte[] state;
+        private final byte[] distance;
+        /**
+         * Moves that stay in the table and have not yet been shown to lose
+         */
+        private final byte[] remaining;
+        /**
+         * The longest loss a move out of the table gives the other side, plus one,
+         * or {@link #CANNOT_LOSE}
+         */
+        private final byte[] exitLoss;
+        /**
+         * Positions decided from outside the table that only take effect at a
+         * later ply, by ply; lost positions are stored complemented
+         */
+        private final IntList[] pending = new IntList[MAX_PLIES + 2];
+
+        Build(int[] pieces, Tablebases smaller) {
+            this.pieces = pieces;
+            this.count = pieces.length;
+            this.size = Tablebases.size(count);
+            this.smaller = smaller;
+            this.state = new byte[size];
+            this.distance = new byte[size];
+            this.remaining = new byte[size];
+            this.exitLoss = new byte[size];
+            for (int ply = 0; ply < pending.length; ply++) {
+                pending[ply] = new IntList();
+            }
+        }
+
+        TablebaseStats run() throws IOException {
+            long start = System.nanoTime();
+            IntList frontier = new IntList();
+            pool.invoke(new Examine(0, size, frontier));
+
+            int ply = 0;
+            while (true) {
+                for (int i = 0; i < pending[ply].size(); i++) {
+                    int entry = pending[ply].get(i);
+                    if (entry < 0) {
+                        decide(~entry, Tablebases.WDL_LOSS, ply, frontier);
+                    } else if (BYTES.compareAndSet(state, entry, UNKNOWN, (byte) Tablebases.WDL_WIN)) {
+                        distance[entry] = (byte) ply;
+                        frontier.add(entry);
+                    }
+                }
+                if (frontier.size() == 0 && !pendingAfter(ply)) {
+                    break;
+                }
+                if (ply == MAX_PLIES) {
+                    throw new IllegalStateException("Mates longer than " + MAX_PLIES + " plies");
+                }
+                IntList next = new IntList();
+                pool.invoke(new Retract(frontier, 0, frontier.size(), ply, next));
+                frontier = next;
+                ply++;
+            }
+            for (int index = 0; index < size; index++) {
+                if (state[index] == UNKNOWN) {
+                    state[index] = Tablebases.WDL_DRAW;
+                }
+            }
+            write();
+            return new TablebaseStats(Tablebases.name(pieces), size, Math.max(0, ply - 1), System.nanoTime() - start);
+        }
+
+        private boolean pendingAfter(int ply) {
+            for (int later = ply + 1; later < pending.length; later++) {
+                if (pending[later].size() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void decide(int index, int result, int ply, IntList frontier) {
+            state[index] = (byte) result;
+            distance[index] = (byte) ply;
+            frontier.add(index);
+        }
+
+        /**
+         * @return the distance, if a table can hold it
+         * @throws IllegalStateException if it is longer than {@link #MAX_PLIES}
+         */
+        private int checkDistance(int plies) {
+            if (plies > MAX_PLIES) {
+                throw new IllegalStateException("Mates longer than " + MAX_PLIES + " plies");
+            }
+            return plies;
+        }
+
+        private void schedule(int index, int ply) {
+            synchronized (pending[ply]) {
+                pending[ply].add(index);
+            }
+        }
+
+        /**
+         * First pass over [from, to): legality, mates, and moves out of the table
+         */
+        private class Examine extends RecursiveAction {
+            private final int from;
+            private final int to;
+            private final IntList mates;
+
+            Examine(int from, int to, IntList mates) {
+                this.from = from;
+                this.to = to;
+                this.mates = mates;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > SPLIT) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Examine(from, middle, mates), new Examine(middle, to, mates));
+                    return;
+                }
+                ChessBoard board = new ChessBoard();
+                MoveList moves = new MoveList();
+                IntList found = new IntList();
+                for (int index = from; index < to; index++) {
+                    examine(index, board, moves, found);
+                }
+                synchronized (mates) {
+                    mates.addAll(found);
+                }
+            }
+
+            private void examine(int index, ChessBoard board, MoveList moves, IntList mates) {
+                if (!setUp(board, index)) {
+                    state[index] = Tablebases.WDL_ILLEGAL;
+                    return;
+                }
+                ChessGame.TeamColor side = side(index);
+                ChessGame.TeamColor other = opponent(side);
+                if (board.isSquareAttacked(board.kingSquare(other), side)) {
+                    state[index] = Tablebases.WDL_ILLEGAL;
+                    return;
+                }
+                state[index] = UNKNOWN;
+                moves.clear();
+                MoveGenerator.generateLegal(board, side, moves);
+                if (moves.isEmpty()) {
+                    if (board.isSquareAttacked(board.kingSquare(side), other)) {
+                        decide(index, Tablebases.WDL_LOSS, 0, mates);
+                    } else {
+                        state[index] = Tablebases.WDL_DRAW;
+                    }
+                    return;
+                }
+
+                int inTable = 0;
+                int bestWin = Integer.MAX_VALUE;
+                int longestLoss = 0;
+                boolean canAvoidLoss = false;
+                for (int i = 0; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    if (!PackedMove.isCapture(move) && !PackedMove.isPromotion(move)) {
+                        inTable++;
+                        continue;
+                    }
+                    int undo = board.make(move);
+                    int result = smaller.probeWdl(board, other);
+                    int plies = smaller.probeDtm(board, other);
+                    board.unmake(undo);
+                    if (result == Tablebases.LOSS) {
+                        bestWin = Math.min(bestWin, plies + 1);
+                    } else if (result == Tablebases.WIN) {
+                        longestLoss = Math.max(longestLoss, plies + 1);
+                    } else if (result == Tablebases.DRAW) {
+                        canAvoidLoss = true;
+                    } else {
+                        throw new IllegalStateException("No table for " + board);
+                    }
+                }
+                remaining[index] = (byte) inTable;
+                if (bestWin != Integer.MAX_VALUE) {
+                    exitLoss[index] = CANNOT_LOSE;
+                    schedule(index, checkDistance(bestWin));
+                } else if (canAvoidLoss) {
+                    exitLoss[index] = CANNOT_LOSE;
+                } else {
+                    exitLoss[index] = (byte) checkDistance(longestLoss);
+                    if (inTable == 0) {
+                        schedule(~index, longestLoss);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Walks the positions decided at one ply back to the positions that lead to them
+         */
+        private class Retract extends RecursiveAction {
+            private final IntList frontier;
+            private final int from;
+            private final int to;
+            private final int ply;
+            private final IntList next;
+
+            Retract(IntList frontier, int from, int to, int ply, IntList next) {
+                this.frontier = frontier;
+                this.from = from;
+                this.to = to;
+                this.ply = ply;
+                this.next = next;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > SPLIT / 8) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Retract(frontier, from, middle, ply, next),
+                            new Retract(frontier, middle, to, ply, next));
+                    return;
+                }
+                IntList found = new IntList();
+                for (int i = from; i < to; i++) {
+                    retract(frontier.get(i), found);
+                }
+                synchronized (next) {
+                    next.addAll(found);
+                }
+            }
+
+            private void retract(int index, IntList found) {
+                boolean lost = state[index] == Tablebases.WDL_LOSS;
+                // The team that just moved is the one not to move here
+                int mover = side(index) == ChessGame.TeamColor.WHITE ? 6 : 0;
+                long occupied = 0;
+                for (int slot = 0; slot < count; slot++) {
+                    occupied |= 1L << square(index, slot);
+                }
+                int flipSide = 1 << (6 * count);
+                for (int slot = 0; slot < count; slot++) {
+                    int piece = pieces[slot];
+                    if (piece / 6 * 6 != mover) {
+                        continue;
+                    }
+                    int to = square(index, slot);
+                    long origins = origins(piece, to, occupied);
+                    int shift = 6 * (count - 1 - slot);
+                    while (origins != 0) {
+                        int from = Long.numberOfTrailingZeros(origins);
+                        origins &= origins - 1;
+                        int previous = (index & ~(63 << shift) | from << shift) ^ flipSide;
+                        if (state[previous] != UNKNOWN) {
+                            continue;
+                        }
+                        if (lost) {
+                            if (BYTES.compareAndSet(state, previous, UNKNOWN, (byte) Tablebases.WDL_WIN)) {
+                                distance[previous] = (byte) (ply + 1);
+                                found.add(previous);
+                            }
+                        } else if (countDown(previous)
+                                && exitLoss[previous] != CANNOT_LOSE) {
+                            int lossPly = Math.max(ply + 1, exitLoss[previous] & 0xFF);
+                            if (lossPly == ply + 1) {
+                                decide(previous, Tablebases.WDL_LOSS, lossPly, found);
+                            } else {
+                                schedule(~previous, lossPly);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Takes one from a position's count of remaining moves
+         *
+         * @return True if that was the last one
+         */
+        private boolean countDown(int index) {
+            while (true) {
+                byte left = (byte) BYTES.getVolatile(remaining, index);
+                if (BYTES.compareAndSet(remaining, index, left, (byte) (left - 1))) {
+                    return left == 1;
+                }
+            }
+        }
+
+        /**
+         * @return the squares a piece now on the given square could have come from
+         * without capturing or promoting
+         */
+        private long origins(int piece, int square, long occupied) {
+            long empty = ~occupied;
+            return switch (TYPES[piece % 6]) {
+                case KING -> Attacks.kingAttacks(square) & empty;
+                case QUEEN -> Attacks.queenAttacks(square, occupied) & empty;
+                case BISHOP -> Attacks.bishopAttacks(square, occupied) & empty;
+                case KNIGHT -> Attacks.knightAttacks(square) & empty;
+                case ROOK -> Attacks.rookAttacks(square, occupied) & empty;
+                case PAWN -> piece < 6 ? whitePawnOrigins(square, empty) : blackPawnOrigins(square, empty);
+            };
+        }
+
+        private static long whitePawnOrigins(int square, long empty) {
+            // A pawn on row 2 has not moved; one on row 1 cannot exist
+            if (square < 16) {
+                return 0;
+            }
+            long single = 1L << (square - 8) & empty;
+            long twice = square / 8 == 3 && single != 0 ? 1L << (square - 16) & empty : 0;
+            return single | twice;
+        }
+
+        private static long blackPawnOrigins(int square, long empty) {
+            if (square >= 48) {
+                return 0;
+            }
+            long single = 1L << (square + 8) & empty;
+            long twice = square / 8 == 4 && single != 0 ? 1L << (square + 16) & empty : 0;
+            return single | twice;
+        }
+
+        /**
+         * Puts the index's pieces on the board, clearing any from before
+         *
+         * @return false if two pieces share a square or a pawn is on the first or last row
+         */
+        private boolean setUp(ChessBoard board, int index) {
+            for (long left = board.getOccupancy(); left != 0; left &= left - 1) {
+                board.removePiece(ChessBoard.position(Long.numberOfTrailingZeros(left)));
+            }
+            long occupied = 0;
+            for (int slot = 0; slot < count; slot++) {
+                int square = square(index, slot);
+                long bit = 1L << square;
+                boolean pawn = pieces[slot] % 6 == ChessPiece.PieceType.PAWN.ordinal();
+                if ((occupied & bit) != 0 || pawn && (square < 8 || square >= 56)) {
+                    return false;
+                }
+                occupied |= bit;
+                board.addPiece(ChessBoard.position(square), ChessPiece.of(pieces[slot]));
+            }
+            return true;
+        }
+
+        private int square(int index, int slot) {
+            return index >>> (6 * (count - 1 - slot)) & 63;
+        }
+
+        private ChessGame.TeamColor side(int index) {
+            return (index >>> (6 * count) & 1) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        }
+
+        private void write() throws IOException {
+            String name = Tablebases.name(pieces);
+            ByteBuffer wdl = ByteBuffer.allocate((size + 3) / 4);
+            for (int index = 0; index < size; index++) {
+                int at = index >>> 2;
+                wdl.put(at, (byte) (wdl.get(at) | state[index] << ((index & 3) * 2)));
+            }
+            for (int index = 0; index < size; index++) {
+                if (state[index] != Tablebases.WDL_WIN && state[index] != Tablebases.WDL_LOSS) {
+                    distance[index] = 0;
+                }
+            }
+            // The .dtm file goes first so a table is only seen once both files are complete
+            writeFile(directory.resolve(name + ".dtm"), ByteBuffer.wrap(distance));
+            writeFile(directory.resolve(name + ".wdl"), wdl);
+        }
+    }
+
+    private static void writeFile(Path file, ByteBuffer contents) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor side) {
+        return side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * A growable list of position indexes
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TablebaseGenerator <directory> <table>...");
+            System.exit(2);
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(ForkJoinPool.commonPool(), Path.of(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            for (TablebaseStats stats : generator.generate(args[i])) {
+                System.out.println(stats);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package chess;
+
+/**
+ * What {@link TablebaseGenerator} built for one table
+ */
+public class TablebaseStats {
+
+    private final String name;
+    private final int positions;
+    private final int longestMate;
+    private final long nanos;
+
+    TablebaseStats(String name, int positions, int longestMate, long nanos) {
+        this.name = name;
+        this.positions = positions;
+        this.longestMate = longestMate;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return the table's name, e.g. "KQvK"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of positions in the table, for both sides to move
+     */
+    public int getPositions() {
+        return positions;
+    }
+
+    /**
+     * @return the longest distance to mate in the table, in plies
+     */
+    public int getLongestMate() {
+        return longestMate;
+    }
+
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-8s %10d positions, longest mate %3d plies, %6.1f s", name, positions, longestMate,
+                nanos / 1e9);
+    }
+}
@@ -0,0 +1,294 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Probes endgame tablebases written by {@link TablebaseGenerator}: the exact
+ * outcome and distance to mate of every position with the same few pieces.
+ * <p>
+ * Each table is named after its material, white's pieces then black's, e.g.
+ * "KQvK", and is stored as two files. The .wdl file holds 2 bits per position
+ * (0 draw, 1 win, 2 loss, 3 not a legal position) for the side to move; the
+ * .dtm file holds one byte per position, the number of plies to mate with best
+ * play, or 0 for draws. A position's index is the side to move followed by the
+ * square of each piece, 6 bits each, in the order of the name. A table also
+ * answers for the same material with the colours swapped, by mirroring the board.
+ * <p>
+ * The files are memory-mapped, not read onto the heap, and probing allocates
+ * nothing. A Tablebases instance is safe to share between threads.
+ */
+public final class Tablebases {
+
+    public static final int WIN = 1;
+    public static final int DRAW = 0;
+    public static final int LOSS = -1;
+    /**
+     * The board's material has no table, or the position is not legal
+     */
+    public static final int UNKNOWN = 2;
+
+    static final int MAX_PIECES = 4;
+    static final int WDL_DRAW = 0;
+    static final int WDL_WIN = 1;
+    static final int WDL_LOSS = 2;
+    static final int WDL_ILLEGAL = 3;
+
+    private static final String LETTERS = "KQBNRP";
+
+    /**
+     * Tables by the material key of the boards they answer for, two per table
+     */
+    private final Map<Long, Table> tables = new HashMap<>();
+    private final Set<String> names = new TreeSet<>();
+
+    private Tablebases() {
+    }
+
+    /**
+     * Maps every table in a directory
+     *
+     * @throws IOException if a table cannot be read or has the wrong size
+     */
+    public static Tablebases open(Path directory) throws IOException {
+        Tablebases tablebases = new Tablebases();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.wdl")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - ".wdl".length());
+                int[] pieces = parse(name);
+                int size = size(pieces.length);
+                ByteBuffer wdl = map(file, (size + 3) / 4);
+                ByteBuffer dtm = map(directory.resolve(name + ".dtm"), size);
+                tablebases.tables.put(materialKey(pieces, false), new Table(pieces, wdl, dtm, false));
+                tablebases.tables.putIfAbsent(materialKey(pieces, true), new Table(pieces, wdl, dtm, true));
+                tablebases.names.add(name(pieces));
+            }
+        }
+        return tablebases;
+    }
+
+    private static ByteBuffer map(Path file, long expectedSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != expectedSize) {
+                throw new IOException("Wrong size for a tablebase file: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);
+        }
+    }
+
+    /**
+     * @return the names of the tables found, e.g. "KQvK"
+     */
+    public Set<String> getTableNames() {
+        return names;
+    }
+
+    /**
+     * @return True if there is a table for the board's material
+     */
+    public boolean covers(ChessBoard board) {
+        return find(board) != null;
+    }
+
+    /**
+     * @return {@link #WIN}, {@link #DRAW} or {@link #LOSS} for the team to move
+     * with best play, or {@link #UNKNOWN}
+     */
+    public int probeWdl(ChessBoard board, ChessGame.TeamColor toMove) {
+        Table table = find(board);
+        if (table == null) {
+            return UNKNOWN;
+        }
+        int index = table.index(board, toMove);
+        return switch (table.wdl(index)) {
+            case WDL_WIN -> WIN;
+            case WDL_LOSS -> LOSS;
+            case WDL_DRAW -> DRAW;
+            default -> UNKNOWN;
+        };
+    }
+
+    /**
+     * @return the number of plies to mate with best play: odd when the team to
+     * move wins, even when it loses, 0 if it is already mated. Returns 0 for a
+     * draw and -1 if the result is {@link #UNKNOWN}.
+     */
+    public int probeDtm(ChessBoard board, ChessGame.TeamColor toMove) {
+        Table table = find(board);
+        if (table == null) {
+            return -1;
+        }
+        int index = table.index(board, toMove);
+        return table.wdl(index) == WDL_ILLEGAL ? -1 : table.dtm(index);
+    }
+
+    private Table find(ChessBoard board) {
+        if (Long.bitCount(board.getOccupancy()) > MAX_PIECES) {
+            return null;
+        }
+        return tables.get(board.materialKey());
+    }
+
+    /**
+     * One table's files and index layout. The layout is also used by
+     * {@link TablebaseGenerator}, with no files.
+     */
+    static final class Table {
+        final int[] pieces;
+        private final ByteBuffer wdl;
+        private final ByteBuffer dtm;
+        private final boolean flipped;
+
+        Table(int[] pieces, ByteBuffer wdl, ByteBuffer dtm, boolean flipped) {
+            this.pieces = pieces;
+            this.wdl = wdl;
+            this.dtm = dtm;
+            this.flipped = flipped;
+        }
+
+        /**
+         * @return the index of the board's position; the board must have this table's material
+         */
+        int index(ChessBoard board, ChessGame.TeamColor toMove) {
+            int index = flipped == (toMove == ChessGame.TeamColor.WHITE) ? 1 : 0;
+            long used = 0;
+            for (int piece : pieces) {
+                int actual = flipped ? (piece + 6) % 12 : piece;
+                long bits = board.getPieces(actual) & ~used;
+                long bit = Long.lowestOneBit(bits);
+                used |= bit;
+                int square = Long.numberOfTrailingZeros(bit);
+                index = index << 6 | (flipped ? square ^ 56 : square);
+            }
+            return index;
+        }
+
+        int wdl(int index) {
+            return wdl.get(index >>> 2) >>> ((index & 3) * 2) & 3;
+        }
+
+        int dtm(int index) {
+            return dtm.get(index) & 0xFF;
+        }
+    }
+
+    /**
+     * @return the number of positions in a table with this many pieces, for both sides to move
+     */
+    static int size(int pieceCount) {
+        return 2 << (6 * pieceCount);
+    }
+
+    /**
+     * Reads a table name such as "KRvKN" into {@link ChessBoard#pieceIndex}
+     * values, white's pieces then black's, each team's sorted by type
+     *
+     * @throws IllegalArgumentException if the name is not a table of up to {@value #MAX_PIECES} pieces
+     *                                  with one king a side
+     */
+    static int[] parse(String name) {
+        int split = name.indexOf('v');
+        if (split < 0 || name.length() - 1 > MAX_PIECES) {
+            throw new IllegalArgumentException("Not a tablebase name: " + name);
+        }
+        int[] pieces = new int[name.length() - 1];
+        int count = 0;
+        for (int i = 0; i < name.length(); i++) {
+            if (i == split) {
+                continue;
+            }
+            int type = LETTERS.indexOf(name.charAt(i));
+            if (type < 0) {
+                throw new IllegalArgumentException("Not a tablebase name: " + name);
+            }
+            pieces[count++] = (i < split ? 0 : 6) + type;
+        }
+        Arrays.sort(pieces);
+        if (count(pieces, 0) != 1 || count(pieces, 6) != 1) {
+            throw new IllegalArgumentException("Not a tablebase name: " + name);
+        }
+        return pieces;
+    }
+
+    static String name(int[] pieces) {
+        StringBuilder name = new StringBuilder();
+        for (int piece : pieces) {
+            if (piece == 6) {
+                name.append('v');
+            }
+            name.append(LETTERS.charAt(piece % 6));
+        }
+        return name.toString();
+    }
+
+    /**
+     * @return the pieces with the colours swapped
+     */
+    static int[] flip(int[] pieces) {
+        int[] flipped = new int[pieces.length];
+        for (int i = 0; i < pieces.length; i++) {
+            flipped[i] = (pieces[i] + 6) % 12;
+        }
+        Arrays.sort(flipped);
+        return flipped;
+    }
+
+    /**
+     * @return the colouring of the material that is stored on disk: the one where
+     * white has more material, or, if equal, the one whose name sorts first
+     */
+    static int[] canonical(int[] pieces) {
+        int[] flipped = flip(pieces);
+        int difference = value(pieces) - value(flipped);
+        if (difference > 0 || difference == 0 && name(pieces).compareTo(name(flipped)) <= 0) {
+            return pieces;
+        }
+        return flipped;
+    }
+
+    /**
+     * @return the value of white's pieces
+     */
+    private static int value(int[] pieces) {
+        int value = 0;
+        for (int piece : pieces) {
+            if (piece < 6) {
+                value += Evaluation.PIECE_VALUES[piece];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the {@link ChessBoard#materialKey()} of a board with these pieces,
+     * or with their colours swapped
+     */
+    static long materialKey(int[] pieces, boolean flipped) {
+        long key = 0;
+        for (int piece : pieces) {
+            key += 1L << ((flipped ? (piece + 6) % 12 : piece) * 4);
+        }
+        return key;
+    }
+
+    private static int count(int[] pieces, int piece) {
+        int count = 0;
+        for (int p : pieces) {
+            if (p == piece) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
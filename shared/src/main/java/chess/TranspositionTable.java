@@ -0,0 +1,234 @@
+package chess;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of results keyed by a 64-bit position key, such as
+ * {@link ChessGame#positionKey()}. {@link Perft} stores subtree counts in it
+ * and {@link Search} stores scores and best moves.
+ * <p>
+ * Entries are three longs in one flat array:
+ * <pre>
+ * [0] key ^ meta ^ value
+ * [1] meta: bits 0-15 move, 16-17 bound, 18-25 depth, 26-33 age, 34 in use
+ * [2] value
+ * </pre>
+ * Threads share a table without locks. Each long is read and written
+ * atomically, but a writer may be interrupted between the three, so a reader
+ * can see half of one entry and half of another. Storing the key XORed with
+ * the rest lets {@link #probe} detect that: a torn entry fails the key check
+ * and is treated as a miss.
+ * <p>
+ * Each key maps to one slot. A store replaces the slot's entry when it is for
+ * the same key, was stored before the last {@link #newSearch()}, or was
+ * searched no deeper than the new one.
+ */
+public final class TranspositionTable {
+
+    /**
+     * Bound of a stored value: the exact value, at least it, or at most it
+     */
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int LONGS_PER_ENTRY = 3;
+    private static final int BYTES_PER_ENTRY = LONGS_PER_ENTRY * Long.BYTES;
+    private static final long IN_USE = 1L << 34;
+
+    private final long[] entries;
+    private final long indexMask;
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+
+    /**
+     * @param megabytes the most memory to use; the entry count is rounded down
+     *                  to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB");
+        }
+        long count = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+        if (count * LONGS_PER_ENTRY > Integer.MAX_VALUE - 8) {
+            count = Long.highestOneBit((Integer.MAX_VALUE - 8) / LONGS_PER_ENTRY);
+        }
+        this.entries = new long[(int) count * LONGS_PER_ENTRY];
+        this.indexMask = count - 1;
+    }
+
+    /**
+     * Holds the fields of a probed entry. Reuse one per thread so probing does
+     * not allocate.
+     */
+    public static final class Entry {
+        private int move;
+        private int bound;
+        private int depth;
+        private long value;
+
+        /**
+         * @return the stored {@link PackedMove}, or 0 if none was stored
+         */
+        public int getMove() {
+            return move;
+        }
+
+        public int getBound() {
+            return bound;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Looks up a key
+     *
+     * @param key the position key
+     * @param out filled in with the entry's fields on a hit
+     * @return True if the table held an intact entry for the key
+     */
+    public boolean probe(long key, Entry out) {
+        probes.increment();
+        int slot = slot(key);
+        long check = (long) SLOTS.getOpaque(entries, slot);
+        long meta = (long) SLOTS.getOpaque(entries, slot + 1);
+        long value = (long) SLOTS.getOpaque(entries, slot + 2);
+        if ((meta & IN_USE) == 0 || (check ^ meta ^ value) != key) {
+            return false;
+        }
+        hits.increment();
+        out.move = (int) (meta & 0xFFFF);
+        out.bound = (int) (meta >>> 16 & 3);
+        out.depth = (int) (meta >>> 18 & 0xFF);
+        out.value = value;
+        return true;
+    }
+
+    /**
+     * Stores a result, unless the key's slot holds a deeper result for another
+     * position from the current search
+     *
+     * @param key   the position key
+     * @param depth how deep the result was searched, 0 to 255
+     * @param move  the best {@link PackedMove}, or 0
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param value the result
+     */
+    public void store(long key, int depth, int move, int bound, long value) {
+        int slot = slot(key);
+        int currentAge = age;
+        long oldMeta = (long) SLOTS.getOpaque(entries, slot + 1);
+        if ((oldMeta & IN_USE) != 0) {
+            long oldKey = (long) SLOTS.getOpaque(entries, slot) ^ oldMeta
+                    ^ (long) SLOTS.getOpaque(entries, slot + 2);
+            int oldDepth = (int) (oldMeta >>> 18 & 0xFF);
+            int oldAge = (int) (oldMeta >>> 26 & 0xFF);
+            if (oldKey != key && oldAge == currentAge && oldDepth > depth) {
+                return;
+            }
+            if (oldKey != key) {
+                replaced.increment();
+            }
+        }
+
+        long meta = (move & 0xFFFFL) | (long) (bound & 3) << 16 | (long) (depth & 0xFF) << 18
+                | (long) (currentAge & 0xFF) << 26 | IN_USE;
+        SLOTS.setOpaque(entries, slot, key ^ meta ^ value);
+        SLOTS.setOpaque(entries, slot + 1, meta);
+        SLOTS.setOpaque(entries, slot + 2, value);
+        stores.increment();
+    }
+
+    /**
+     * Marks every stored entry as old, so the next search can replace them
+     * regardless of depth
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table and resets the statistics. Not safe to call while other
+     * threads are using the table.
+     */
+    public void clear() {
+        Arrays.fill(entries, 0L);
+        age = 0;
+        resetStatistics();
+    }
+
+    public void resetStatistics() {
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        replaced.reset();
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int capacity() {
+        return entries.length / LONGS_PER_ENTRY;
+    }
+
+    public long sizeBytes() {
+        return (long) entries.length * Long.BYTES;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return how many stores overwrote an entry for a different position
+     */
+    public long getReplaced() {
+        return replaced.sum();
+    }
+
+    /**
+     * @return hits as a fraction of probes, or 0 before the first probe
+     */
+    public double getHitRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0 : (double) hits.sum() / probeCount;
+    }
+
+    private int slot(long key) {
+        return (int) (key & indexMask) * LONGS_PER_ENTRY;
+    }
+
+    @Override
+    public String toString() {
+        return "TranspositionTable{" +
+                "entries=" + capacity() +
+                ", probes=" + getProbes() +
+                ", hits=" + getHits() +
+                ", stores=" + getStores() +
+                ", replaced=" + getReplaced() +
+                '}';
+    }
+}
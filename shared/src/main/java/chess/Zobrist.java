@@ -0,0 +1,46 @@
+package chess;
+
+/**
+ * Random keys for Zobrist position hashing. A position's key is the XOR of the
+ * key for every piece on its square, plus {@link #blackToMove()} when it is
+ * black's turn, so adding or removing one piece is a single XOR.
+ * <p>
+ * The keys come from a fixed-seed SplitMix64 sequence, so they are the same in
+ * every run and can be stored alongside positions.
+ */
+final class Zobrist {
+
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long state = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            PIECE_SQUARE[i] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param pieceIndex the piece's {@link ChessBoard#pieceIndex}
+     * @param square     the square, 0 to 63
+     */
+    static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex * 64 + square];
+    }
+
+    static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
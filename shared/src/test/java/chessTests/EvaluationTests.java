@@ -0,0 +1,159 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static passoffTests.TestFactory.loadBoard;
+
+public class EvaluationTests {
+
+    @Test
+    @DisplayName("Starting Position Is Balanced")
+    public void startingPosition() {
+        var board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(0, board.evaluate());
+        Assertions.assertEquals(24, board.getPhase());
+        Assertions.assertEquals(4000, board.getMaterial(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(4000, board.getMaterial(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Mirrored Positions Have Opposite Scores")
+    public void mirrored() {
+        var board = loadBoard("""
+                | | | | |k| | | |
+                | |p| | | | | | |
+                | | | | | | | | |
+                | | | |N| | | | |
+                | | | | | |p| | |
+                | | | | | | | | |
+                |P|P| | | | |R| |
+                | | | | | | |K| |
+                """);
+        var mirror = loadBoard("""
+                | | | | | | |k| |
+                |p|p| | | | |r| |
+                | | | | | | | | |
+                | | | | | |P| | |
+                | | | |n| | | | |
+                | | | | | | | | |
+                | |P| | | | | | |
+                | | | | |K| | | |
+                """);
+
+        Assertions.assertNotEquals(0, board.evaluate());
+        Assertions.assertEquals(-board.evaluate(), mirror.evaluate());
+        Assertions.assertEquals(board.getPhase(), mirror.getPhase());
+    }
+
+    @Test
+    @DisplayName("King Prefers the Centre in the Endgame")
+    public void tapered() {
+        var corner = loadBoard("""
+                | | | | | | | |k|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """);
+
+        Assertions.assertEquals(0, corner.getPhase());
+        Assertions.assertTrue(corner.evaluate() > 0, "A central king should beat a cornered one");
+    }
+
+    @Test
+    @DisplayName("Incremental Score Matches a Fresh Board")
+    public void incremental() {
+        var board = loadBoard("""
+                |r| | | |k| | |r|
+                |p| |p|p|q|p|b| |
+                |b|n| | |p|n|p| |
+                | | | |P|N| | | |
+                | |p| | |P| | | |
+                | | |N| | |Q| |p|
+                |P|P|P|B|B|P|P|P|
+                |R| | | |K| | |R|
+                """);
+        var game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        walk(game, 3);
+
+        // Promotions and captures through addPiece and removePiece
+        board.addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        board.removePiece(new ChessPosition(1, 1));
+        board.addPiece(new ChessPosition(3, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        assertMatchesFreshBoard(board);
+    }
+
+    /**
+     * Walks the move tree with make and unmake, comparing every node against a board built from scratch
+     */
+    private static void walk(ChessGame game, int depth) {
+        assertMatchesFreshBoard(game.getBoard());
+        if (depth == 0) {
+            return;
+        }
+        var moves = new MoveList();
+        game.generateLegal(moves);
+        var turn = game.getTeamTurn();
+        var next = turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        for (int i = 0; i < moves.size(); i++) {
+            int undo = game.getBoard().make(moves.get(i));
+            game.setTeamTurn(next);
+            walk(game, depth - 1);
+            game.setTeamTurn(turn);
+            game.getBoard().unmake(undo);
+        }
+    }
+
+    @Test
+    @DisplayName("Material Key Does Not Wrap Past 15 of a Piece")
+    public void materialKeyOverflow() {
+        var pawns = new ChessBoard();
+        for (int col = 1; col <= 8; col++) {
+            pawns.addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        }
+        for (int col = 1; col <= 7; col++) {
+            pawns.addPiece(new ChessPosition(3, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        }
+        long fifteen = pawns.materialKey();
+        Assertions.assertNotEquals(ChessBoard.NO_MATERIAL_KEY, fifteen);
+
+        // A 16th white pawn would carry into the black king's count
+        var blackKing = new ChessBoard();
+        blackKing.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        pawns.addPiece(new ChessPosition(3, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        Assertions.assertEquals(ChessBoard.NO_MATERIAL_KEY, pawns.materialKey());
+        Assertions.assertNotEquals(blackKing.materialKey(), pawns.materialKey());
+
+        pawns.removePiece(new ChessPosition(3, 8));
+        Assertions.assertEquals(fifteen, pawns.materialKey());
+    }
+
+    private static void assertMatchesFreshBoard(ChessBoard board) {
+        var fresh = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var position = new ChessPosition(row, col);
+                var piece = board.getPiece(position);
+                if (piece != null) {
+                    fresh.addPiece(position, piece);
+                }
+            }
+        }
+        Assertions.assertEquals(fresh.evaluate(), board.evaluate(), board.toString());
+        Assertions.assertEquals(fresh.getPhase(), board.getPhase());
+        Assertions.assertEquals(fresh.materialKey(), board.materialKey());
+        for (var color : ChessGame.TeamColor.values()) {
+            Assertions.assertEquals(fresh.getMaterial(color), board.getMaterial(color));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static passoffTests.TestFactory.loadBoard;
+
+public class FenTests {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    @Test
+    @DisplayName("Starting Position Round Trip")
+    public void startingPosition() {
+        var game = ChessGame.fromFen(START);
+        var board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(board, game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        Assertions.assertEquals(START, game.toFen());
+    }
+
+    @Test
+    @DisplayName("Matches a Text Board")
+    public void textBoard() throws IOException {
+        var game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1");
+        var board = loadBoard("""
+                |r| | | |k| | |r|
+                |p| |p|p|q|p|b| |
+                |b|n| | |p|n|p| |
+                | | | |P|N| | | |
+                | |p| | |P| | | |
+                | | |N| | |Q| |p|
+                |P|P|P|B|B|P|P|P|
+                |R| | | |K| | |R|
+                """);
+
+        Assertions.assertEquals(board, game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        var out = new StringBuilder();
+        game.toFen(out);
+        Assertions.assertEquals("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b - - 0 1", out.toString());
+    }
+
+    @Test
+    @DisplayName("Perft From FEN")
+    public void perft() {
+        Assertions.assertEquals(2810, new Perft(ChessGame.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w")).perft(3));
+        Assertions.assertEquals(9483, new Perft(ChessGame.fromFen("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1")).perft(3));
+    }
+
+    @Test
+    @DisplayName("Malformed FEN Is Rejected")
+    public void malformed() {
+        String[] bad = {
+                "",
+                "8/8/8/8/8/8/8 w",
+                "8/8/8/8/8/8/8/8/8 w",
+                "9/8/8/8/8/8/8/8 w",
+                "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN w",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR white",
+        };
+        for (var fen : bad) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+}
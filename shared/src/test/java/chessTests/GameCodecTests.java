@@ -0,0 +1,108 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static chessTests.TestGames.startingGame;
+
+public class GameCodecTests {
+
+    @Test
+    @DisplayName("Starting Position Round Trip")
+    public void startingPosition() {
+        var game = startingGame();
+
+        byte[] data = GameCodec.encode(game);
+        Assertions.assertEquals(27, data.length);
+        Assertions.assertEquals(game, GameCodec.decode(data));
+    }
+
+    @Test
+    @DisplayName("Empty Game Round Trip")
+    public void emptyGame() {
+        var game = new ChessGame();
+        var decoded = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertNull(decoded.getBoard());
+        Assertions.assertNull(decoded.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Move History Can Be Taken Back After Decoding")
+    public void history() throws InvalidMoveException {
+        var game = ChessGame.fromFen("4k3/1P6/8/3p4/4P3/8/8/4K3 w");
+        var start = new ChessBoard(game.getBoard());
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(7, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT));
+
+        var decoded = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertEquals(game, decoded);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        for (int i = 0; i < 3; i++) {
+            decoded.undoMove();
+        }
+        Assertions.assertEquals(start, decoded.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, decoded.getTeamTurn());
+        Assertions.assertThrows(InvalidMoveException.class, decoded::undoMove);
+    }
+
+    @Test
+    @DisplayName("Bad Data Is Rejected")
+    public void badData() {
+        byte[] data = GameCodec.encode(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 b"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[0]));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode(Arrays.copyOf(data, data.length - 1)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode(Arrays.copyOf(data, data.length + 1)));
+        data[0] = 99;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(data));
+    }
+
+    @Test
+    @DisplayName("Unknown Flags Are Rejected")
+    public void badFlags() {
+        byte[] data = GameCodec.encode(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w"));
+        // Side to move 3 is neither white nor black
+        data[1] = (byte) (data[1] | 3);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(data));
+        data[1] = (byte) (data[1] & ~3 | 8);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(data));
+    }
+
+    @Test
+    @DisplayName("Corrupt Move History Is Rejected")
+    public void badHistory() throws InvalidMoveException {
+        var game = ChessGame.fromFen("4k3/8/8/3p4/4P3/8/8/4K3 w");
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+        byte[] good = GameCodec.encode(game);
+        int record = good.length - 3;
+        Assertions.assertEquals(game, GameCodec.decode(good));
+
+        // Bits above the undo record's fields
+        byte[] data = good.clone();
+        data[record] |= (byte) 0x10;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(data));
+        // A start square that is occupied after the move
+        byte[] occupied = good.clone();
+        occupied[record + 2] = (byte) (occupied[record + 2] & 0xC0 | 60);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(occupied));
+        // An end square that is empty
+        byte[] empty = good.clone();
+        empty[record + 1] = (byte) (empty[record + 1] & 0xF0);
+        empty[record + 2] = (byte) (empty[record + 2] & 0x3F);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(empty));
+        // A captured piece index past the last piece
+        byte[] piece = good.clone();
+        piece[record + 1] = (byte) (piece[record + 1] & 0x0F | 0xF0);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(piece));
+        // A captured piece of the moving side
+        byte[] ownSide = good.clone();
+        ownSide[record + 1] = (byte) (ownSide[record + 1] & 0x0F | (ChessPiece.PieceType.PAWN.ordinal() + 1) << 4);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(ownSide));
+    }
+}
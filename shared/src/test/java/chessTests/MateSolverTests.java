@@ -0,0 +1,109 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static chessTests.TestGames.loadGame;
+
+public class MateSolverTests {
+
+    private ForkJoinPool pool;
+    private MateSolver solver;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        solver = new MateSolver(pool, new TranspositionTable(4));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Mate in One Instead of Stalemate")
+    public void mateInOne() throws InvalidMoveException {
+        // Qc7 would stalemate; Qc8 mates
+        var game = loadGame("""
+                |k| | | | | | | |
+                | | | | | | | | |
+                | |K| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |Q| | | | | |
+                """, ChessGame.TeamColor.WHITE);
+        var result = solver.solve(game, 3);
+
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(1, result.getMovesToMate());
+        game.makeMove(result.getMove());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Back Rank Mate in Two")
+    public void mateInTwo() {
+        var game = loadGame("""
+                | | | |r| | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R|P|P|P|
+                | | | | |R| |K| |
+                """, ChessGame.TeamColor.WHITE);
+        var result = solver.solve(game, 3);
+
+        Assertions.assertEquals(2, result.getMovesToMate());
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 5), new ChessPosition(8, 5), null),
+                result.getMove());
+        Assertions.assertTrue(result.getNodes() > 0);
+    }
+
+    @Test
+    @DisplayName("King and Rook Mate in Four")
+    public void mateInFour() {
+        var game = loadGame("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |k| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |K| | | | |
+                |R| | | | | | | |
+                | | | | | | | |R|
+                """, ChessGame.TeamColor.WHITE);
+
+        Assertions.assertFalse(solver.solve(game, 3).isMate(), "No mate should be found in three moves");
+        Assertions.assertEquals(4, solver.solve(game, 5).getMovesToMate());
+    }
+
+    @Test
+    @DisplayName("Checkmated Side Has No Mate")
+    public void alreadyMated() {
+        var game = loadGame("""
+                | | | | | | |k| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |n| | | |
+                | | | | | | |q| |
+                | | | | | | | |K|
+                """, ChessGame.TeamColor.WHITE);
+        var result = solver.solve(game, 2);
+
+        Assertions.assertFalse(result.isMate());
+        Assertions.assertNull(result.getMove());
+    }
+}
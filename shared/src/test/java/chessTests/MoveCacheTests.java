@@ -0,0 +1,75 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static chessTests.TestGames.startingGame;
+
+public class MoveCacheTests {
+
+    private ChessGame game;
+
+    @BeforeEach
+    public void setUp() {
+        game = startingGame();
+    }
+
+    @Test
+    @DisplayName("Repeated Lookups Reuse the Moves")
+    public void repeatedLookups() {
+        Assertions.assertEquals(2, game.validMoves(new ChessPosition(2, 5)).size());
+        Assertions.assertEquals(2, game.validMoves(new ChessPosition(1, 7)).size());
+        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.WHITE));
+
+        Assertions.assertEquals(1, game.getMoveCacheMisses(), "Moves should be generated once");
+        Assertions.assertEquals(2, game.getMoveCacheHits());
+    }
+
+    @Test
+    @DisplayName("Checking for Stalemate Without Cached Moves Counts a Miss")
+    public void stalemateWithoutCache() {
+        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.WHITE));
+
+        Assertions.assertEquals(1, game.getMoveCacheMisses());
+        Assertions.assertEquals(0, game.getMoveCacheHits());
+    }
+
+    @Test
+    @DisplayName("Making a Move Invalidates the Cache")
+    public void makeMoveInvalidates() throws InvalidMoveException {
+        game.validMoves(new ChessPosition(2, 5));
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals(1, game.getMoveCacheMisses());
+
+        // The white queen now has a diagonal open
+        game.validMoves(new ChessPosition(7, 4));
+        Assertions.assertEquals(4, game.validMoves(new ChessPosition(1, 4)).size());
+        Assertions.assertEquals(3, game.getMoveCacheMisses());
+    }
+
+    @Test
+    @DisplayName("Setting the Board or Turn Invalidates the Cache")
+    public void setBoardAndTurnInvalidate() {
+        game.validMoves(new ChessPosition(2, 5));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        game.validMoves(new ChessPosition(2, 5));
+        game.setBoard(new ChessBoard(game.getBoard()));
+        game.validMoves(new ChessPosition(2, 5));
+
+        Assertions.assertEquals(3, game.getMoveCacheMisses());
+        Assertions.assertEquals(0, game.getMoveCacheHits());
+    }
+
+    @Test
+    @DisplayName("Editing the Board Directly Is Noticed")
+    public void boardEdited() {
+        Assertions.assertEquals(0, game.validMoves(new ChessPosition(1, 1)).size());
+        game.getBoard().removePiece(new ChessPosition(2, 1));
+
+        Assertions.assertEquals(6, game.validMoves(new ChessPosition(1, 1)).size());
+        Assertions.assertEquals(2, game.getMoveCacheMisses());
+    }
+}
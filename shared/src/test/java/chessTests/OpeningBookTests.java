@@ -0,0 +1,127 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static chessTests.TestGames.startingGame;
+
+public class OpeningBookTests {
+
+    @Test
+    @DisplayName("Built Book Reads Back by Position")
+    public void buildAndRead() throws Exception {
+        var builder = new OpeningBookBuilder(4);
+        builder.addGame(moves("e2e4 e7e5 g1f3 b8c6 f1b5"), ChessGame.TeamColor.WHITE);
+        builder.addGame(moves("e2e4 c7c5 g1f3"), ChessGame.TeamColor.BLACK);
+        builder.addGame(moves("d2d4 d7d5"), null);
+        builder.addGame(moves("e2e4 e7e5"), null);
+
+        var book = writeAndOpen(builder);
+        Assertions.assertEquals(builder.size(), book.size());
+
+        var game = startingGame();
+        long start = game.positionKey();
+        Assertions.assertEquals(2, book.count(start), "Only e4 and d4 were played first");
+        int first = book.find(start);
+        // e4: 2 for the win, 1 for the unknown result; the loss earns nothing
+        Assertions.assertEquals(PackedMove.parse("e2e4"), book.getMove(first));
+        Assertions.assertEquals(3, book.getWeight(first));
+        Assertions.assertEquals(PackedMove.parse("d2d4"), book.getMove(first + 1));
+        Assertions.assertEquals(1, book.getWeight(first + 1));
+
+        game.makeMove(PackedMove.toChessMove(PackedMove.parse("e2e4")));
+        Assertions.assertEquals(2, book.count(game.positionKey()), "Both black replies to e4 should be listed");
+        // c5 won once; e5 lost once and was played once with no result
+        Assertions.assertEquals(PackedMove.parse("c7c5"), book.getMove(book.find(game.positionKey())));
+
+        Assertions.assertEquals(-1, book.find(game.positionKey() ^ 1));
+        Assertions.assertEquals(-1, book.pickMove(game.positionKey() ^ 1, 0.5));
+    }
+
+    @Test
+    @DisplayName("Picks Follow the Weights")
+    public void weightedPick() throws Exception {
+        var builder = new OpeningBookBuilder(1);
+        for (int i = 0; i < 3; i++) {
+            builder.addGame(moves("e2e4"), null);
+        }
+        builder.addGame(moves("g1f3"), null);
+        var book = writeAndOpen(builder);
+        long start = startingGame().positionKey();
+
+        Assertions.assertEquals(PackedMove.parse("e2e4"), book.pickMove(start, 0.0));
+        Assertions.assertEquals(PackedMove.parse("e2e4"), book.pickMove(start, 0.74));
+        Assertions.assertEquals(PackedMove.parse("g1f3"), book.pickMove(start, 0.75));
+        Assertions.assertEquals(PackedMove.parse("g1f3"), book.pickMove(start, 0.99));
+
+        var move = book.getMove(startingGame(), new Random(7));
+        Assertions.assertNotNull(move);
+        startingGame().makeMove(move);
+    }
+
+    @Test
+    @DisplayName("Promotions and Many Positions Survive the File")
+    public void manyPositions() throws Exception {
+        var builder = new OpeningBookBuilder(40);
+        // A pawn race to promotion, then every opening pawn move
+        builder.addGame(moves("a2a4 h7h5 a4a5 h5h4 a5a6 h4h3 a6b7 h3g2 b7a8n g2h1r"), null);
+        for (char column = 'a'; column <= 'h'; column++) {
+            builder.addGame(moves(column + "2" + column + "3"), null);
+            builder.addGame(moves(column + "2" + column + "4"), null);
+        }
+        var book = writeAndOpen(builder);
+
+        var game = startingGame();
+        for (var move : moves("a2a4 h7h5 a4a5 h5h4 a5a6 h4h3 a6b7 h3g2 b7a8n g2h1r")) {
+            int index = book.find(game.positionKey());
+            Assertions.assertTrue(index >= 0, "Missing position before " + move);
+            boolean found = false;
+            for (int i = index; i < index + book.count(game.positionKey()); i++) {
+                found |= book.getMove(i) == PackedMove.of(move);
+            }
+            Assertions.assertTrue(found, "Missing move " + move);
+            game.makeMove(move);
+        }
+        Assertions.assertEquals(16, book.count(startingGame().positionKey()));
+        for (int i = 1; i < book.size(); i++) {
+            Assertions.assertTrue(Long.compareUnsigned(book.getKey(i - 1), book.getKey(i)) <= 0,
+                    "Entries must be sorted by key");
+        }
+    }
+
+    @Test
+    @DisplayName("Illegal Games Are Rejected")
+    public void illegalGame() {
+        var builder = new OpeningBookBuilder(8);
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> builder.addGame(moves("e2e4 e2e4"), ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0, builder.size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PackedMove.parse("e2e9"));
+    }
+
+    private static OpeningBook writeAndOpen(OpeningBookBuilder builder) throws IOException {
+        var file = Files.createTempFile("book", ".bin");
+        try {
+            builder.write(file);
+            return OpeningBook.open(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<ChessMove> moves(String text) {
+        var moves = new ArrayList<ChessMove>();
+        for (var move : text.split(" ")) {
+            moves.add(PackedMove.toChessMove(PackedMove.parse(move)));
+        }
+        return moves;
+    }
+}
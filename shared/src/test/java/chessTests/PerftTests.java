@@ -0,0 +1,315 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static passoffTests.TestFactory.loadBoard;
+import static chessTests.TestGames.loadGame;
+
+/**
+ * Perft counts for positions with published results. This engine has no
+ * castling or en passant, so the positions are ones where neither can occur
+ * at the tested depth, except where a comment says how the count was adjusted.
+ */
+public class PerftTests {
+
+    private static final String START = """
+            |r|n|b|q|k|b|n|r|
+            |p|p|p|p|p|p|p|p|
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |P|P|P|P|P|P|P|P|
+            |R|N|B|Q|K|B|N|R|
+            """;
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startingPosition() {
+        assertPerft(START, ChessGame.TeamColor.WHITE, 1, 20);
+        assertPerft(START, ChessGame.TeamColor.WHITE, 2, 400);
+        assertPerft(START, ChessGame.TeamColor.WHITE, 3, 8902);
+        assertPerft(START, ChessGame.TeamColor.WHITE, 4, 197281);
+        // The published 4,865,609 includes 258 en passant captures, all of them leaf moves
+        assertPerft(START, ChessGame.TeamColor.WHITE, 5, 4865351);
+    }
+
+    @Test
+    @DisplayName("Middlegame Without Castling Rights")
+    public void middlegame() {
+        var board = """
+                |r| | | | |r|k| |
+                | |p|p| |q|p|p|p|
+                |p| |n|p| |n| | |
+                | | |b| |p| |B| |
+                | | |B| |P| |b| |
+                |P| |N|P| |N| | |
+                | |P|P| |Q|P|P|P|
+                |R| | | | |R|K| |
+                """;
+        assertPerft(board, ChessGame.TeamColor.WHITE, 1, 46);
+        assertPerft(board, ChessGame.TeamColor.WHITE, 2, 2079);
+        assertPerft(board, ChessGame.TeamColor.WHITE, 3, 89890);
+    }
+
+    @Test
+    @DisplayName("Rook and Pawn Endgame")
+    public void rookEndgame() {
+        var board = """
+                | | | | | | | | |
+                | | |p| | | | | |
+                | | | |p| | | | |
+                |K|P| | | | | |r|
+                | |R| | | |p| |k|
+                | | | | | | | | |
+                | | | | |P| |P| |
+                | | | | | | | | |
+                """;
+        assertPerft(board, ChessGame.TeamColor.WHITE, 1, 14);
+        assertPerft(board, ChessGame.TeamColor.WHITE, 2, 191);
+        // The published 2,812 includes 2 en passant captures, both leaf moves
+        assertPerft(board, ChessGame.TeamColor.WHITE, 3, 2810);
+    }
+
+    @Test
+    @DisplayName("Promotions on Both Sides")
+    public void promotions() {
+        var board = """
+                |n| |n| | | | | |
+                |P|P|P|k| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K|p|p|p|
+                | | | | | |N| |N|
+                """;
+        assertPerft(board, ChessGame.TeamColor.BLACK, 1, 24);
+        assertPerft(board, ChessGame.TeamColor.BLACK, 2, 496);
+        assertPerft(board, ChessGame.TeamColor.BLACK, 3, 9483);
+        assertPerft(board, ChessGame.TeamColor.BLACK, 4, 182838);
+    }
+
+    @Test
+    @DisplayName("Promote Out of Check")
+    public void promoteOutOfCheck() {
+        assertPerft("""
+                | | |K| | |r| | |
+                | | | | |P| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |k| | | | |
+                """, ChessGame.TeamColor.WHITE, 6, 3821001);
+    }
+
+    @Test
+    @DisplayName("Discovered Check")
+    public void discoveredCheck() {
+        assertPerft("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | |P| | |K| | | |
+                | | | | | | | | |
+                | | |n| | | | | |
+                | |q| | | | | | |
+                | | | | | | | | |
+                | | | | | |k| | |
+                """, ChessGame.TeamColor.BLACK, 5, 1004658);
+    }
+
+    @Test
+    @DisplayName("Promote to Give Check")
+    public void promoteToGiveCheck() {
+        assertPerft("""
+                | | | | |k| | | |
+                | |P| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.WHITE, 6, 217342);
+    }
+
+    @Test
+    @DisplayName("Underpromote to Check")
+    public void underpromoteToCheck() {
+        assertPerft("""
+                | | | | | | | | |
+                |P| |k| | | | | |
+                |K| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.WHITE, 6, 92683);
+    }
+
+    @Test
+    @DisplayName("Self Stalemate")
+    public void selfStalemate() {
+        assertPerft("""
+                |K| |k| | | | | |
+                | | | | | | | | |
+                |P| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.WHITE, 6, 2217);
+    }
+
+    @Test
+    @DisplayName("Stalemate and Checkmate")
+    public void stalemateAndCheckmate() {
+        assertPerft("""
+                | | | | | | | | |
+                |k| |P| | | | | |
+                | | | | | | | | |
+                | |K| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.WHITE, 7, 567584);
+    }
+
+    @Test
+    @DisplayName("Double Check")
+    public void doubleCheck() {
+        assertPerft("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |k| | | | | |
+                | | | | | |q| | |
+                | | | | | |n| | |
+                | | | | | | | | |
+                | | | | | |K| | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.BLACK, 4, 23527);
+    }
+
+    @Test
+    @DisplayName("Divide Sums to Perft")
+    public void divideMatchesPerft() {
+        var game = loadGame(START, ChessGame.TeamColor.WHITE);
+        var divide = new Perft(game).divide(3);
+
+        Assertions.assertEquals(20, divide.size(), "Wrong number of root moves");
+        Assertions.assertEquals(8902, divide.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(600, divide.get("e2e4"), "Wrong count below e2e4");
+    }
+
+    @Test
+    @DisplayName("Perft Leaves the Game Unchanged")
+    public void boardRestored() {
+        var game = loadGame(START, ChessGame.TeamColor.WHITE);
+        new Perft(game).perft(4);
+
+        Assertions.assertEquals(loadBoard(START), game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Parallel Perft Matches")
+    public void parallelPerft() {
+        var pool = new ForkJoinPool(4);
+        try {
+            var game = loadGame(START, ChessGame.TeamColor.WHITE);
+            var perft = new Perft(game);
+            Assertions.assertEquals(20, perft.parallelPerft(1, pool));
+            Assertions.assertEquals(8902, perft.parallelPerft(3, pool));
+            Assertions.assertEquals(4865351, perft.parallelPerft(5, pool));
+            Assertions.assertEquals(loadBoard(START), game.getBoard(), "Parallel perft changed the game's board");
+
+            game = loadGame("""
+                    | | | | | | | | |
+                    | | | | | | | | |
+                    | | |k| | | | | |
+                    | | | | | |q| | |
+                    | | | | | |n| | |
+                    | | | | | | | | |
+                    | | | | | |K| | |
+                    | | | | | | | | |
+                    """, ChessGame.TeamColor.BLACK);
+            Assertions.assertEquals(23527, new Perft(game).parallelPerft(4, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Early Exit Agrees With Full Generation")
+    public void hasAnyLegalMove() {
+        // Reaches stalemates, checkmates and double checks within a few moves
+        var game = loadGame("""
+                | | | | | | | | |
+                |k| |P| | | | | |
+                | | | | | | | | |
+                | |K| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.WHITE);
+        Assertions.assertTrue(countDeadEnds(game, 5) > 0, "Expected the tree to reach positions with no moves");
+
+        game = loadGame("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |k| | | | | |
+                | | | | | |q| | |
+                | | | | | |n| | |
+                | | | | | | | | |
+                | | | | | |K| | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        countDeadEnds(game, 3);
+    }
+
+    /**
+     * Walks the move tree checking hasAnyLegalMove against generateLegal at every node
+     *
+     * @return the number of nodes where the side to move had no legal move
+     */
+    private static long countDeadEnds(ChessGame game, int depth) {
+        var moves = new MoveList();
+        game.generateLegal(moves);
+        Assertions.assertEquals(!moves.isEmpty(), game.hasAnyLegalMove(game.getTeamTurn()),
+                "hasAnyLegalMove disagrees on " + game.getBoard());
+        if (moves.isEmpty()) {
+            return 1;
+        }
+        if (depth == 0) {
+            return 0;
+        }
+        long deadEnds = 0;
+        var turn = game.getTeamTurn();
+        var next = turn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        for (int i = 0; i < moves.size(); i++) {
+            int undo = game.getBoard().make(moves.get(i));
+            game.setTeamTurn(next);
+            deadEnds += countDeadEnds(game, depth - 1);
+            game.setTeamTurn(turn);
+            game.getBoard().unmake(undo);
+        }
+        return deadEnds;
+    }
+
+    private static void assertPerft(String boardText, ChessGame.TeamColor turn, int depth, long expected) {
+        var game = loadGame(boardText, turn);
+        Assertions.assertEquals(expected, new Perft(game).perft(depth),
+                "Wrong perft count at depth " + depth);
+    }
+}
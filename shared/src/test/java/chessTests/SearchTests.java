@@ -0,0 +1,137 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static chessTests.TestGames.loadGame;
+import static chessTests.TestGames.startingGame;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Finds Mate in One")
+    public void mateInOne() {
+        var game = loadGame("""
+                | | | | | | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | | | |K| |
+                """, ChessGame.TeamColor.WHITE);
+        var result = new Search().search(game, SearchLimits.depth(4));
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                result.getBestMove());
+        Assertions.assertEquals(Search.MATE - 1, result.getScore());
+        Assertions.assertTrue(result.isMate());
+    }
+
+    @Test
+    @DisplayName("Finds Mate in Two")
+    public void mateInTwo() {
+        // Back rank: 1. Re8+ Rxe8 2. Rxe8#
+        var game = loadGame("""
+                | | | |r| | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R|P|P|P|
+                | | | | |R| |K| |
+                """, ChessGame.TeamColor.WHITE);
+        var result = new Search().search(game, SearchLimits.depth(6));
+
+        Assertions.assertEquals(Search.MATE - 3, result.getScore(), "Expected mate in two moves");
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 5), new ChessPosition(8, 5), null),
+                result.getBestMove());
+    }
+
+    @Test
+    @DisplayName("Takes a Hanging Queen")
+    public void takesHangingQueen() {
+        var game = loadGame("""
+                | | | | |k| | | |
+                |p|p|p| | |p|p|p|
+                | | | | | | | | |
+                | | | |q| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |P|P|P| | |P|P|P|
+                | | | |R| | |K| |
+                """, ChessGame.TeamColor.WHITE);
+        var result = new Search().search(game, SearchLimits.depth(3));
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 4), new ChessPosition(5, 4), null),
+                result.getBestMove());
+        Assertions.assertTrue(result.getScore() > 300, "Winning the queen should leave white well ahead");
+    }
+
+    @Test
+    @DisplayName("Stays Within the Node Budget")
+    public void nodeBudget() {
+        var game = startingGame();
+        var result = new Search().search(game, new SearchLimits(Search.MAX_DEPTH, 5_000, SearchLimits.UNLIMITED));
+
+        Assertions.assertTrue(result.getNodes() <= 5_000, "Visited " + result.getNodes() + " nodes");
+        Assertions.assertNotNull(result.getBestMove());
+        Assertions.assertTrue(game.validMoves(result.getBestMove().getStartPosition()).contains(result.getBestMove()));
+    }
+
+    @Test
+    @DisplayName("Stays Within the Time Budget")
+    public void timeBudget() {
+        var result = new Search().search(startingGame(), SearchLimits.millis(100));
+
+        Assertions.assertTrue(result.getMillis() < 1_000, "Took " + result.getMillis() + " ms");
+        Assertions.assertTrue(result.getDepth() >= 1);
+        Assertions.assertNotNull(result.getBestMove());
+    }
+
+    @Test
+    @DisplayName("No Move When Checkmated or Stalemated")
+    public void noLegalMoves() {
+        var mated = loadGame("""
+                | | | | | | |k| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |n| | | |
+                | | | | | | |q| |
+                | | | | | | | |K|
+                """, ChessGame.TeamColor.WHITE);
+        var result = new Search().search(mated, SearchLimits.depth(3));
+        Assertions.assertNull(result.getBestMove());
+        Assertions.assertEquals(-Search.MATE, result.getScore());
+
+        var stalemated = loadGame("""
+                |k| | | | | | | |
+                | | |Q| | | | | |
+                | |K| | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        result = new Search().search(stalemated, SearchLimits.depth(3));
+        Assertions.assertNull(result.getBestMove());
+        Assertions.assertEquals(0, result.getScore());
+    }
+
+    @Test
+    @DisplayName("Search Leaves the Game Unchanged")
+    public void gameUnchanged() {
+        var game = startingGame();
+        new Search().search(game, SearchLimits.depth(4));
+
+        Assertions.assertEquals(startingGame().getBoard(), game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+}
@@ -0,0 +1,176 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class TablebaseTests {
+
+    private static Path directory;
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        directory = Files.createTempDirectory("tablebases");
+        var pool = new ForkJoinPool(4);
+        try {
+            var generator = new TablebaseGenerator(pool, directory);
+            var built = generator.generate("KvKQ");
+            Assertions.assertEquals(List.of("KvK", "KQvK"), built.stream().map(TablebaseStats::getName).toList());
+            Assertions.assertEquals(20, built.get(1).getLongestMate());
+            Assertions.assertEquals(1, generator.generate("KRvK").size());
+            Assertions.assertTrue(generator.generate("KQvK").isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+        tablebases = Tablebases.open(directory);
+    }
+
+    @AfterAll
+    public static void delete() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    @DisplayName("Dependencies Are Generated First")
+    public void tableNames() {
+        Assertions.assertTrue(tablebases.getTableNames().contains("KvK"));
+        Assertions.assertTrue(tablebases.getTableNames().contains("KQvK"));
+        Assertions.assertTrue(tablebases.getTableNames().contains("KRvK"));
+    }
+
+    @Test
+    @DisplayName("Distances Match the Mate Solver")
+    public void matchesMateSolver() {
+        var pool = new ForkJoinPool(4);
+        try {
+            var solver = new MateSolver(pool, new TranspositionTable(16));
+            for (var board : new ChessBoard[]{board("Kd4", "Qd1", "ke6"), board("Kf5", "Rh1", "kf7"),
+                    board("Kb6", "Qe2", "kb8")}) {
+                var game = new ChessGame();
+                game.setBoard(board);
+                game.setTeamTurn(ChessGame.TeamColor.WHITE);
+                int moves = solver.solve(game, 6).getMovesToMate();
+
+                Assertions.assertEquals(Tablebases.WIN, tablebases.probeWdl(board, ChessGame.TeamColor.WHITE));
+                Assertions.assertEquals(moves * 2 - 1, tablebases.probeDtm(board, ChessGame.TeamColor.WHITE),
+                        board.toString());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Colours Swapped Use the Same Table")
+    public void mirrored() {
+        var board = board("kd5", "qd8", "Ke3");
+        Assertions.assertTrue(tablebases.covers(board));
+        Assertions.assertEquals(Tablebases.WIN, tablebases.probeWdl(board, ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(tablebases.probeDtm(board("Kd4", "Qd1", "ke6"), ChessGame.TeamColor.WHITE),
+                tablebases.probeDtm(board, ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(Tablebases.LOSS, tablebases.probeWdl(board("Kc3", "kc5", "qh7"), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Mates, Stalemates and Draws")
+    public void terminalPositions() {
+        var mated = board("Kf6", "Qg7", "kh8");
+        Assertions.assertEquals(Tablebases.LOSS, tablebases.probeWdl(mated, ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(0, tablebases.probeDtm(mated, ChessGame.TeamColor.BLACK));
+
+        var stalemate = board("Kf7", "Qg6", "kh8");
+        Assertions.assertEquals(Tablebases.DRAW, tablebases.probeWdl(stalemate, ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(0, tablebases.probeDtm(stalemate, ChessGame.TeamColor.BLACK));
+
+        // The king takes the undefended queen
+        Assertions.assertEquals(Tablebases.DRAW, tablebases.probeWdl(board("Ka1", "Qd5", "ke4"), ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(Tablebases.DRAW, tablebases.probeWdl(board("Ka1", "kh8"), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Missing Material and Illegal Positions Are Unknown")
+    public void unknown() {
+        var start = new ChessBoard();
+        start.resetBoard();
+        Assertions.assertFalse(tablebases.covers(start));
+        Assertions.assertEquals(Tablebases.UNKNOWN, tablebases.probeWdl(start, ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(-1, tablebases.probeDtm(start, ChessGame.TeamColor.WHITE));
+
+        Assertions.assertEquals(Tablebases.UNKNOWN, tablebases.probeWdl(board("Ka1", "Ra2", "Rb2", "kh8"),
+                ChessGame.TeamColor.WHITE));
+        // The side not to move is in check
+        Assertions.assertEquals(Tablebases.UNKNOWN, tablebases.probeWdl(board("Ka1", "Qh1", "kh8"), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Following the Tables Mates in the Promised Number of Plies")
+    public void playOut() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.setBoard(board("Kf5", "Rh1", "kf7"));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        int plies = tablebases.probeDtm(game.getBoard(), ChessGame.TeamColor.WHITE);
+
+        for (int ply = 0; ply < plies; ply++) {
+            var side = game.getTeamTurn();
+            var other = side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            int expected = tablebases.probeDtm(game.getBoard(), side) - 1;
+            ChessMove best = null;
+            for (var move : game.allValidMoves(side, game.getBoard())) {
+                int undo = game.getBoard().make(move);
+                int wdl = tablebases.probeWdl(game.getBoard(), other);
+                int dtm = tablebases.probeDtm(game.getBoard(), other);
+                game.getBoard().unmake(undo);
+                // The winner keeps the loser on a loss; the loser can never reach anything better
+                if (side == ChessGame.TeamColor.WHITE) {
+                    Assertions.assertTrue(wdl != Tablebases.LOSS || dtm >= expected);
+                } else {
+                    Assertions.assertEquals(Tablebases.WIN, wdl);
+                    Assertions.assertTrue(dtm <= expected);
+                }
+                if (dtm == expected && wdl != Tablebases.DRAW) {
+                    best = move;
+                }
+            }
+            Assertions.assertNotNull(best, "No move keeps the distance at ply " + ply);
+            game.makeMove(best);
+        }
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    /**
+     * @param pieces pieces as letter and square, e.g. "Kg1"; upper case is white
+     */
+    private static ChessBoard board(String... pieces) {
+        var board = new ChessBoard();
+        for (var piece : pieces) {
+            char letter = piece.charAt(0);
+            var color = Character.isUpperCase(letter) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            var type = switch (Character.toUpperCase(letter)) {
+                case 'K' -> ChessPiece.PieceType.KING;
+                case 'Q' -> ChessPiece.PieceType.QUEEN;
+                case 'R' -> ChessPiece.PieceType.ROOK;
+                case 'B' -> ChessPiece.PieceType.BISHOP;
+                case 'N' -> ChessPiece.PieceType.KNIGHT;
+                default -> ChessPiece.PieceType.PAWN;
+            };
+            board.addPiece(new ChessPosition(piece.charAt(2) - '0', piece.charAt(1) - 'a' + 1),
+                    new ChessPiece(color, type));
+        }
+        return board;
+    }
+}
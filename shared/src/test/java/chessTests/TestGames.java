@@ -0,0 +1,31 @@
+package chessTests;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+import static passoffTests.TestFactory.loadBoard;
+
+/**
+ * Games the engine tests start from
+ */
+final class TestGames {
+
+    private TestGames() {
+    }
+
+    static ChessGame loadGame(String boardText, ChessGame.TeamColor turn) {
+        var game = new ChessGame();
+        game.setBoard(loadBoard(boardText));
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    static ChessGame startingGame() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        var game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        return game;
+    }
+}
@@ -0,0 +1,118 @@
+package chessTests;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static chessTests.TestGames.startingGame;
+
+public class TranspositionTableTests {
+
+    @Test
+    @DisplayName("Stored Entries Read Back")
+    public void storeAndProbe() {
+        var table = new TranspositionTable(1);
+        var entry = new TranspositionTable.Entry();
+        long key = 0x9E3779B97F4A7C15L;
+
+        Assertions.assertFalse(table.probe(key, entry));
+        table.store(key, 7, PackedMove.of(12, 28, 0), TranspositionTable.LOWER, -1234567890123L);
+
+        Assertions.assertTrue(table.probe(key, entry));
+        Assertions.assertEquals(7, entry.getDepth());
+        Assertions.assertEquals(PackedMove.of(12, 28, 0), entry.getMove());
+        Assertions.assertEquals(TranspositionTable.LOWER, entry.getBound());
+        Assertions.assertEquals(-1234567890123L, entry.getValue());
+        Assertions.assertEquals(0.5, table.getHitRate());
+    }
+
+    @Test
+    @DisplayName("Size Rounds Down to a Power of Two")
+    public void size() {
+        var table = new TranspositionTable(16);
+        Assertions.assertEquals(1, Integer.bitCount(table.capacity()));
+        Assertions.assertTrue(table.sizeBytes() <= 16L * 1024 * 1024);
+        Assertions.assertTrue(table.sizeBytes() > 8L * 1024 * 1024);
+    }
+
+    @Test
+    @DisplayName("Deeper Entries Survive Until the Next Search")
+    public void replacement() {
+        var table = new TranspositionTable(1);
+        var entry = new TranspositionTable.Entry();
+        // Same slot, different keys
+        long deep = 5;
+        long shallow = deep + ((long) table.capacity() << 8);
+
+        table.store(deep, 9, 0, TranspositionTable.EXACT, 1);
+        table.store(shallow, 3, 0, TranspositionTable.EXACT, 2);
+        Assertions.assertTrue(table.probe(deep, entry), "A shallower result replaced a deeper one");
+        Assertions.assertFalse(table.probe(shallow, entry));
+
+        table.newSearch();
+        table.store(shallow, 3, 0, TranspositionTable.EXACT, 2);
+        Assertions.assertTrue(table.probe(shallow, entry), "An entry from an old search was kept");
+        Assertions.assertEquals(2, entry.getValue());
+        Assertions.assertEquals(1, table.getReplaced());
+    }
+
+    @Test
+    @DisplayName("Concurrent Writers Never Produce a Wrong Hit")
+    public void concurrentAccess() {
+        var table = new TranspositionTable(1);
+        var wrongHits = new AtomicLong();
+        var pool = new ForkJoinPool(4);
+        try {
+            var tasks = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 4; thread++) {
+                long seed = thread;
+                tasks.add(pool.submit(() -> {
+                    var random = new SplittableRandom(seed);
+                    var entry = new TranspositionTable.Entry();
+                    for (int i = 0; i < 200_000; i++) {
+                        // Few distinct slots, so writers keep colliding
+                        long key = random.nextLong() & ~0xFFF0L | (random.nextInt(16) << 4);
+                        if (random.nextBoolean()) {
+                            table.store(key, random.nextInt(20), (int) key & 0xFFFF, TranspositionTable.EXACT, ~key);
+                        } else if (table.probe(key, entry) && (entry.getValue() != ~key
+                                || entry.getMove() != ((int) key & 0xFFFF))) {
+                            wrongHits.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (var task : tasks) {
+                task.get();
+            }
+        } catch (Exception e) {
+            Assertions.fail(e);
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertEquals(0, wrongHits.get());
+    }
+
+    @Test
+    @DisplayName("Perft Counts Are Unchanged by the Table")
+    public void perftWithTable() {
+        var game = startingGame();
+        var table = new TranspositionTable(8);
+
+        Assertions.assertEquals(4865351, new Perft(game, table).perft(5));
+        Assertions.assertTrue(table.getHitRate() > 0, "Transpositions should hit the table");
+
+        var pool = new ForkJoinPool(4);
+        try {
+            Assertions.assertEquals(4865351, new Perft(game, table).parallelPerft(5, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}